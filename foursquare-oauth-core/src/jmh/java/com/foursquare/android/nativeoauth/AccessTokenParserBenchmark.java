@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Parsing of token endpoint responses, from the raw stream to the result.
+ * 
+ * @date 2026-10-17
+ */
+@State(Scope.Thread)
+public class AccessTokenParserBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String TOKEN = "ZQ3H1KX0RZYDJLEWUQ5NVF2IBM4ACNT0GOSP1JYW3XLR5KQE";
+
+    @Param({ "token", "error", "tokenAfterFields" })
+    public String response;
+
+    private byte[] mBody;
+
+    @Setup
+    public void setUp() {
+        String json;
+        if ("error".equals(response)) {
+            json = "{\"error\":\"invalid_grant\"}";
+        } else if ("tokenAfterFields".equals(response)) {
+            json = "{\"meta\":{\"code\":200,\"requestId\":\"5e70a1b2c3d4e5f6a7b8c9d0\"},"
+                    + "\"notifications\":[{\"type\":\"notificationTray\",\"item\":{\"unreadCount\":0}}],"
+                    + "\"access_token\":\"" + TOKEN + "\"}";
+        } else {
+            json = "{\"access_token\":\"" + TOKEN + "\"}";
+        }
+        mBody = json.getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public AccessTokenParser.Result parse() throws IOException {
+        return AccessTokenParser.parse(new ByteArrayInputStream(mBody));
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Mapping of the connect result extras to an outcome.
+ * 
+ * @date 2026-10-17
+ */
+@State(Scope.Thread)
+public class AuthErrorBenchmark {
+
+    @Param({ "", "invalid_request", "unsupported_version", "internal_error", "invalid_client" })
+    public String errorCode;
+
+    @Benchmark
+    public AuthError classify() {
+        return AuthError.classify(false, errorCode);
+    }
+}
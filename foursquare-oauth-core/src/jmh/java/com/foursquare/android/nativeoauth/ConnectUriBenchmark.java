@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Construction of the {@code foursquareauth://authorize} connect uri.
+ * 
+ * @date 2026-10-17
+ */
+@State(Scope.Thread)
+public class ConnectUriBenchmark {
+
+    private static final int VERSION = 20130509;
+
+    private String mClientId = "FQ2VZCOHFQEQZ5BQIWXHUVTKD2ZFY0OVNOWXTFFYJT3SGWA0";
+    private String mSignature = "3B:8C:F1:0E:2A:91:7D:44:C5:60:BA:1F:D3:72:E8:09:55:AF:13:C6";
+
+    @Benchmark
+    public String buildConnectUri() {
+        return ConnectUris.buildConnectUri(mClientId, VERSION, mSignature);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+/**
+ * Formatting of the signing certificate digest sent as {@code androidKeyHash}.
+ * 
+ * @date 2026-10-17
+ */
+@State(Scope.Thread)
+public class FingerprintBenchmark {
+
+    private byte[] mCertificate;
+    private byte[] mDigest;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        // Roughly the size of a DER encoded signing certificate.
+        mCertificate = new byte[768];
+        new Random(42).nextBytes(mCertificate);
+        mDigest = MessageDigest.getInstance("SHA1").digest(mCertificate);
+    }
+
+    @Benchmark
+    public String toHex() {
+        return Fingerprints.toHex(mDigest);
+    }
+
+    @Benchmark
+    public String digestAndToHex() throws NoSuchAlgorithmException {
+        return Fingerprints.toHex(MessageDigest.getInstance("SHA1").digest(mCertificate));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Redirect detection run on every navigation of the web flow, and reading
+ * the code once the callback matched.
+ *
+ * @date 2026-10-17
+ */
+@State(Scope.Thread)
+public class RedirectMatcherBenchmark {
+
+    @Param({
+            "https://foursquare.com/oauth2/authenticate?client_id=FQ2VZCOHFQEQZ5BQIWXHUVTKD2ZFY0OVNOWXTFFYJT3SGWA0&response_type=code&container=android",
+            "https://foursquare.com/oauth2/authenticate?client_id=FQ2VZCOHFQEQZ5BQIWXHUVTKD2ZFY0OVNOWXTFFYJT3SGWA0&denied=1",
+            "foursquareauth://callback?code=KJ3NQHZL0RTBYAXWUE5OM2FGPDC4IS1V&state=0f8fad5b-d9cb-469f-a165-70867728950e",
+            "https://ss0.4sqi.net/img/static/oauth/connect-logo.png" })
+    public String url;
+
+    @Benchmark
+    public int match() {
+        return RedirectMatcher.match(url);
+    }
+
+    @Benchmark
+    public String getCode() {
+        return RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_CODE);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives concurrent token exchanges through {@link TokenExchangeTransport}
+ * and reports latency percentiles, throughput and connection reuse.
+ * <br>
+ * <br>
+ * Unless an {@code endpoint} is given, a {@link StubTokenServer} is started
+ * in process. Options are passed as {@code key=value} arguments:
+ * 
+ * <pre>
+ * ./gradlew :foursquare-oauth-core:loadTest -PloadTestArgs="requests=10000 concurrency=500 latency=40"
+ * </pre>
+ * 
+ * <ul>
+ * <li>{@code requests} total exchanges, default 5000</li>
+ * <li>{@code concurrency} exchanges in flight, default 200</li>
+ * <li>{@code latency}, {@code jitter} stub response delay in ms, default 20 and 10</li>
+ * <li>{@code serverErrorRate}, {@code oauthErrorRate} fraction of 503 and OAuth error responses</li>
+ * <li>{@code dripRate}, {@code dripChunk}, {@code dripInterval} slow-drip responses</li>
+ * <li>{@code maxAttempts}, {@code deadline}, {@code readTimeout} retry policy</li>
+ * <li>{@code maxConnections} idle keep-alive connections kept per host</li>
+ * <li>{@code endpoint} an already running endpoint to use instead of the stub</li>
+ * </ul>
+ * 
+ * @date 2026-10-17
+ */
+final class LoadGenerator {
+
+    private static final String CLIENT_ID = "LOADTESTCLIENT";
+    private static final String CLIENT_SECRET = "LOADTESTSECRET";
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int requests = intOption(options, "requests", 5000);
+        int concurrency = intOption(options, "concurrency", 200);
+
+        // Read by HttpURLConnection when its keep-alive cache is first used.
+        if (options.containsKey("maxConnections")) {
+            System.setProperty("http.maxConnections", options.get("maxConnections"));
+        }
+
+        StubTokenServer server = null;
+        String endpoint = options.get("endpoint");
+        if (endpoint == null) {
+            server = new StubTokenServer.Builder()
+                    .setLatencyMillis(intOption(options, "latency", 20), intOption(options, "jitter", 10))
+                    .setServerErrorRate(doubleOption(options, "serverErrorRate", 0))
+                    .setOAuthErrorRate(doubleOption(options, "oauthErrorRate", 0))
+                    .setDrip(doubleOption(options, "dripRate", 0), intOption(options, "dripChunk", 4),
+                            intOption(options, "dripInterval", 50))
+                    .build();
+            server.start();
+            endpoint = server.getEndpoint();
+        }
+
+        RetryPolicy.Builder policy = new RetryPolicy.Builder()
+                .setMaxAttempts(intOption(options, "maxAttempts", RetryPolicy.DEFAULT.getMaxAttempts()))
+                .setTotalDeadlineMillis(intOption(options, "deadline", (int) RetryPolicy.DEFAULT.getTotalDeadlineMillis()))
+                .setReadTimeoutMillis(intOption(options, "readTimeout", RetryPolicy.DEFAULT.getReadTimeoutMillis()));
+        TokenExchangeTransport.setEndpoint(endpoint);
+        TokenExchangeTransport.setRetryPolicy(policy.build());
+
+        try {
+            Report report = run(requests, concurrency);
+            report.print(requests, concurrency, server);
+        } finally {
+            TokenExchangeTransport.setEndpoint(null);
+            TokenExchangeTransport.setRetryPolicy(null);
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private static Report run(final int requests, int concurrency) throws InterruptedException {
+        final long[] latencies = new long[requests];
+        final AtomicInteger next = new AtomicInteger();
+        final Report report = new Report(latencies);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        int index;
+                        while ((index = next.getAndIncrement()) < requests) {
+                            long begin = System.nanoTime();
+                            try {
+                                AccessTokenParser.Result result = TokenExchangeTransport.exchange(
+                                        CLIENT_ID, CLIENT_SECRET, "code-" + index);
+                                if (result.errorCode != null) {
+                                    report.mOAuthErrors.incrementAndGet();
+                                } else {
+                                    report.mTokens.incrementAndGet();
+                                }
+                            } catch (IOException e) {
+                                report.mFailures.incrementAndGet();
+                            }
+                            latencies[index] = System.nanoTime() - begin;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "LoadGenerator-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        report.mElapsedNanos = System.nanoTime() - begin;
+        return report;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<String, String>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        String value = options.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static double doubleOption(Map<String, String> options, String key, double defaultValue) {
+        String value = options.get(key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    private static final class Report {
+
+        private final long[] mLatencies;
+        private final AtomicLong mTokens = new AtomicLong();
+        private final AtomicLong mOAuthErrors = new AtomicLong();
+        private final AtomicLong mFailures = new AtomicLong();
+        private long mElapsedNanos;
+
+        Report(long[] latencies) {
+            mLatencies = latencies;
+        }
+
+        void print(int requests, int concurrency, StubTokenServer server) {
+            long[] sorted = mLatencies.clone();
+            Arrays.sort(sorted);
+            double seconds = mElapsedNanos / 1e9;
+
+            System.out.println(String.format(Locale.US, "exchanges     %d at concurrency %d", requests, concurrency));
+            System.out.println(String.format(Locale.US, "elapsed       %.2f s", seconds));
+            System.out.println(String.format(Locale.US, "throughput    %.1f exchanges/s", requests / seconds));
+            System.out.println(String.format(Locale.US, "latency ms    p50 %.1f  p95 %.1f  p99 %.1f  max %.1f",
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                    sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0));
+            System.out.println(String.format(Locale.US, "outcomes      token %d  oauth error %d  failed %d",
+                    mTokens.get(), mOAuthErrors.get(), mFailures.get()));
+            if (server != null) {
+                long served = server.getRequestCount();
+                long connections = server.getConnectionCount();
+                System.out.println(String.format(Locale.US,
+                        "server        requests %d  connections %d  reused %d  (503 %d, drip %d)",
+                        served, connections, served - connections, server.getServerErrorCount(),
+                        server.getDripCount()));
+            }
+        }
+
+        private static double percentile(long[] sorted, int percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
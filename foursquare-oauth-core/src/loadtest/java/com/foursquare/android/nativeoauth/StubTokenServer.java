@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process stand-in for the Foursquare token endpoint.
+ * <br>
+ * <br>
+ * Every request is answered after a configurable latency with either an
+ * access token, an OAuth {@code error} body, or a 503. Responses can also be
+ * dripped out a few bytes at a time to exercise read timeouts. The server
+ * counts requests and distinct client sockets so callers can tell how often
+ * keep-alive connections were reused.
+ * 
+ * <pre>
+ * {@code
+ * StubTokenServer server = new StubTokenServer.Builder()
+ *         .setLatencyMillis(50)
+ *         .setServerErrorRate(0.05)
+ *         .build();
+ * server.start();
+ * TokenExchangeTransport.setEndpoint(server.getEndpoint());
+ * }
+ * </pre>
+ * 
+ * @date 2026-10-17
+ */
+final class StubTokenServer {
+
+    static final String PATH = "/oauth2/access_token";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte[] SERVER_ERROR_BODY = "<html><body>Service Unavailable</body></html>".getBytes(UTF_8);
+
+    private final int mPort;
+    private final long mLatencyMillis;
+    private final long mLatencyJitterMillis;
+    private final double mServerErrorRate;
+    private final double mOAuthErrorRate;
+    private final String mOAuthErrorCode;
+    private final double mDripRate;
+    private final int mDripChunkBytes;
+    private final long mDripIntervalMillis;
+
+    private final AtomicLong mRequests = new AtomicLong();
+    private final AtomicLong mTokens = new AtomicLong();
+    private final AtomicLong mOAuthErrors = new AtomicLong();
+    private final AtomicLong mServerErrors = new AtomicLong();
+    private final AtomicLong mDrips = new AtomicLong();
+    private final Set<String> mConnections =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private HttpServer mServer;
+    private ExecutorService mExecutor;
+
+    private StubTokenServer(Builder builder) {
+        mPort = builder.mPort;
+        mLatencyMillis = builder.mLatencyMillis;
+        mLatencyJitterMillis = builder.mLatencyJitterMillis;
+        mServerErrorRate = builder.mServerErrorRate;
+        mOAuthErrorRate = builder.mOAuthErrorRate;
+        mOAuthErrorCode = builder.mOAuthErrorCode;
+        mDripRate = builder.mDripRate;
+        mDripChunkBytes = builder.mDripChunkBytes;
+        mDripIntervalMillis = builder.mDripIntervalMillis;
+    }
+
+    synchronized void start() throws IOException {
+        if (mServer != null) {
+            return;
+        }
+        mServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), mPort), 1024);
+        mServer.createContext(PATH, new TokenHandler());
+        mExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "StubTokenServer-" + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mServer.setExecutor(mExecutor);
+        mServer.start();
+    }
+
+    synchronized void stop() {
+        if (mServer == null) {
+            return;
+        }
+        mServer.stop(0);
+        mExecutor.shutdownNow();
+        mServer = null;
+        mExecutor = null;
+    }
+
+    synchronized String getEndpoint() {
+        if (mServer == null) {
+            throw new IllegalStateException("Server is not started");
+        }
+        InetSocketAddress address = mServer.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort() + PATH;
+    }
+
+    long getRequestCount() {
+        return mRequests.get();
+    }
+
+    /** The number of distinct client sockets that sent at least one request. */
+    long getConnectionCount() {
+        return mConnections.size();
+    }
+
+    long getTokenCount() {
+        return mTokens.get();
+    }
+
+    long getOAuthErrorCount() {
+        return mOAuthErrors.get();
+    }
+
+    long getServerErrorCount() {
+        return mServerErrors.get();
+    }
+
+    long getDripCount() {
+        return mDrips.get();
+    }
+
+    private final class TokenHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                mRequests.incrementAndGet();
+                mConnections.add(String.valueOf(exchange.getRemoteAddress()));
+
+                // The body has to be consumed for the connection to be kept alive.
+                String form = readBody(exchange.getRequestBody());
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    respond(exchange, 405, SERVER_ERROR_BODY, false);
+                    return;
+                }
+
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long latency = mLatencyMillis;
+                if (mLatencyJitterMillis > 0) {
+                    latency += random.nextLong(mLatencyJitterMillis + 1);
+                }
+                if (latency > 0) {
+                    Thread.sleep(latency);
+                }
+
+                boolean drip = mDripRate > 0 && random.nextDouble() < mDripRate;
+                double roll = random.nextDouble();
+                if (roll < mServerErrorRate) {
+                    mServerErrors.incrementAndGet();
+                    respond(exchange, 503, SERVER_ERROR_BODY, drip);
+                } else if (roll < mServerErrorRate + mOAuthErrorRate || !form.contains("code=")) {
+                    mOAuthErrors.incrementAndGet();
+                    respond(exchange, 400, ("{\"error\":\"" + mOAuthErrorCode + "\"}").getBytes(UTF_8), drip);
+                } else {
+                    mTokens.incrementAndGet();
+                    String token = Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+                    respond(exchange, 200, ("{\"access_token\":\"" + token + "\"}").getBytes(UTF_8), drip);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private void respond(HttpExchange exchange, int status, byte[] body, boolean drip)
+                throws IOException, InterruptedException {
+            exchange.getResponseHeaders().set("Content-Type",
+                    status == 503 ? "text/html; charset=utf-8" : "application/json; charset=utf-8");
+            OutputStream out = exchange.getResponseBody();
+            if (!drip) {
+                exchange.sendResponseHeaders(status, body.length);
+                out.write(body);
+                out.close();
+                return;
+            }
+
+            mDrips.incrementAndGet();
+            // A length of zero selects chunked encoding, so each write is sent as it happens.
+            exchange.sendResponseHeaders(status, 0);
+            for (int offset = 0; offset < body.length; offset += mDripChunkBytes) {
+                out.write(body, offset, Math.min(mDripChunkBytes, body.length - offset));
+                out.flush();
+                Thread.sleep(mDripIntervalMillis);
+            }
+            out.close();
+        }
+
+        private String readBody(InputStream in) throws IOException {
+            StringBuilder body = new StringBuilder();
+            byte[] buffer = new byte[512];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.append(new String(buffer, 0, read, UTF_8));
+            }
+            in.close();
+            return body.toString();
+        }
+    }
+
+    static final class Builder {
+
+        private int mPort;
+        private long mLatencyMillis;
+        private long mLatencyJitterMillis;
+        private double mServerErrorRate;
+        private double mOAuthErrorRate;
+        private String mOAuthErrorCode = "invalid_grant";
+        private double mDripRate;
+        private int mDripChunkBytes = 4;
+        private long mDripIntervalMillis = 50;
+
+        /** @param port the port to listen on, or 0 to pick a free one. */
+        Builder setPort(int port) {
+            mPort = port;
+            return this;
+        }
+
+        /** Fixed delay before every response, plus up to jitter extra. */
+        Builder setLatencyMillis(long latencyMillis, long jitterMillis) {
+            mLatencyMillis = latencyMillis;
+            mLatencyJitterMillis = jitterMillis;
+            return this;
+        }
+
+        Builder setLatencyMillis(long latencyMillis) {
+            return setLatencyMillis(latencyMillis, 0);
+        }
+
+        /** Fraction of requests answered with a 503 and an HTML body. */
+        Builder setServerErrorRate(double rate) {
+            mServerErrorRate = rate;
+            return this;
+        }
+
+        /** Fraction of requests answered with a 400 and an OAuth error body. */
+        Builder setOAuthErrorRate(double rate, String errorCode) {
+            mOAuthErrorRate = rate;
+            mOAuthErrorCode = errorCode;
+            return this;
+        }
+
+        Builder setOAuthErrorRate(double rate) {
+            return setOAuthErrorRate(rate, mOAuthErrorCode);
+        }
+
+        /** Fraction of responses written chunkBytes at a time, intervalMillis apart. */
+        Builder setDrip(double rate, int chunkBytes, long intervalMillis) {
+            if (chunkBytes < 1) {
+                throw new IllegalArgumentException("chunkBytes must be at least 1");
+            }
+            mDripRate = rate;
+            mDripChunkBytes = chunkBytes;
+            mDripIntervalMillis = intervalMillis;
+            return this;
+        }
+
+        StubTokenServer build() {
+            if (mServerErrorRate + mOAuthErrorRate > 1) {
+                throw new IllegalArgumentException("Error rates add up to more than 1");
+            }
+            return new StubTokenServer(this);
+        }
+    }
+}
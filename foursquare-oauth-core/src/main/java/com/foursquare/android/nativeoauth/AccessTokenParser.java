@@ -0,0 +1,409 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the access token response straight from the connection stream.
+ * <br>
+ * <br>
+ * This is a minimal JSON scanner rather than a general parser. It only
+ * decodes the {@code access_token} and {@code error} fields of the top level
+ * object and skips everything else without decoding it, but still checks
+ * the whole body: truncated or unbalanced JSON, or anything after the top
+ * level object, is rejected. Responses larger than
+ * {@link #MAX_RESPONSE_BYTES} or nested deeper than {@link #MAX_DEPTH} are
+ * rejected too. The read buffers are kept per thread and reused, and the
+ * body is always read to its end so the connection can be reused.
+ * 
+ * @date 2026-10-17
+ */
+final class AccessTokenParser {
+
+    static final int MAX_RESPONSE_BYTES = 16 * 1024;
+    static final int MAX_DEPTH = 32;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte[] FIELD_ACCESS_TOKEN = "access_token".getBytes(UTF_8);
+    private static final byte[] FIELD_ERROR = "error".getBytes(UTF_8);
+
+    private static final ThreadLocal<Scanner> SCANNER = new ThreadLocal<Scanner>() {
+        @Override
+        protected Scanner initialValue() {
+            return new Scanner();
+        }
+    };
+
+    /**
+     * The parsed response. Exactly one of the two fields is set.
+     */
+    static final class Result {
+        final String accessToken;
+        final String errorCode;
+
+        Result(String accessToken, String errorCode) {
+            this.accessToken = accessToken;
+            this.errorCode = errorCode;
+        }
+    }
+
+    private AccessTokenParser() {
+    }
+
+    static Result parse(InputStream in) throws IOException {
+        Scanner scanner = SCANNER.get();
+        scanner.reset(in);
+        try {
+            return scanner.parseObject();
+        } finally {
+            scanner.release();
+        }
+    }
+
+    private static final class Scanner {
+
+        private static final int FIELD_OTHER = 0;
+        private static final int FIELD_TOKEN = 1;
+        private static final int FIELD_ERROR_CODE = 2;
+
+        private final byte[] mBuffer = new byte[2048];
+        private byte[] mString = new byte[256];
+        private int mStringLength;
+
+        private InputStream mIn;
+        private int mPos;
+        private int mLimit;
+        private int mConsumed;
+
+        void reset(InputStream in) {
+            mIn = in;
+            mPos = 0;
+            mLimit = 0;
+            mConsumed = 0;
+        }
+
+        void release() {
+            mIn = null;
+        }
+
+        Result parseObject() throws IOException {
+            if (nextNonWhitespace() != '{') {
+                throw new MalformedResponseException("Response is not a JSON object");
+            }
+
+            Result result = null;
+            int c = nextNonWhitespace();
+            if (c != '}') {
+                while (true) {
+                    if (c != '"') {
+                        throw syntaxError();
+                    }
+                    readString();
+                    int field = matchField();
+
+                    if (nextNonWhitespace() != ':') {
+                        throw syntaxError();
+                    }
+                    c = nextNonWhitespace();
+                    if (c == '"') {
+                        readString();
+                        if (result != null || mStringLength == 0) {
+                            // Only the first token or error counts.
+                        } else if (field == FIELD_TOKEN) {
+                            result = new Result(currentString(), null);
+                        } else if (field == FIELD_ERROR_CODE) {
+                            result = new Result(null, currentString());
+                        }
+                    } else {
+                        skipValue(c, 1);
+                    }
+
+                    c = nextNonWhitespace();
+                    if (c == '}') {
+                        break;
+                    } else if (c != ',') {
+                        throw syntaxError();
+                    }
+                    c = nextNonWhitespace();
+                }
+            }
+
+            if (nextNonWhitespace() != -1) {
+                throw syntaxError();
+            }
+            if (result == null) {
+                throw new MalformedResponseException("Response has no access token");
+            }
+            return result;
+        }
+
+        private int read() throws IOException {
+            if (mPos == mLimit && !fill()) {
+                return -1;
+            }
+            return mBuffer[mPos++] & 0xFF;
+        }
+
+        /** Only valid directly after {@link #read()} returned a byte. */
+        private void unread() {
+            mPos--;
+        }
+
+        private boolean fill() throws IOException {
+            int count;
+            do {
+                count = mIn.read(mBuffer, 0, mBuffer.length);
+            } while (count == 0);
+            if (count < 0) {
+                return false;
+            }
+            mConsumed += count;
+            if (mConsumed > MAX_RESPONSE_BYTES) {
+                throw new MalformedResponseException("Response exceeds " + MAX_RESPONSE_BYTES + " bytes");
+            }
+            mPos = 0;
+            mLimit = count;
+            return true;
+        }
+
+        private int nextNonWhitespace() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+            return c;
+        }
+
+        /**
+         * Reads a string whose opening quote has been consumed into the
+         * string buffer, as UTF-8.
+         */
+        private void readString() throws IOException {
+            mStringLength = 0;
+            while (true) {
+                int c = read();
+                if (c == '"') {
+                    return;
+                } else if (c == '\\') {
+                    readEscape();
+                } else if (c < 0x20) {
+                    // Also catches the end of the stream.
+                    throw syntaxError();
+                } else {
+                    append(c);
+                }
+            }
+        }
+
+        private void readEscape() throws IOException {
+            int c = read();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    append(c);
+                    break;
+                case 'b':
+                    append('\b');
+                    break;
+                case 'f':
+                    append('\f');
+                    break;
+                case 'n':
+                    append('\n');
+                    break;
+                case 'r':
+                    append('\r');
+                    break;
+                case 't':
+                    append('\t');
+                    break;
+                case 'u':
+                    appendCodePoint(readUnicodeEscape());
+                    break;
+                default:
+                    throw syntaxError();
+            }
+        }
+
+        private int readUnicodeEscape() throws IOException {
+            int unit = readHex4();
+            if (!Character.isHighSurrogate((char) unit)) {
+                return unit;
+            }
+            if (read() != '\\' || read() != 'u') {
+                throw syntaxError();
+            }
+            int low = readHex4();
+            if (!Character.isLowSurrogate((char) low)) {
+                throw syntaxError();
+            }
+            return Character.toCodePoint((char) unit, (char) low);
+        }
+
+        private int readHex4() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if (digit < 0) {
+                    throw syntaxError();
+                }
+                value = (value << 4) | digit;
+            }
+            return value;
+        }
+
+        /**
+         * Checks and skips the value starting with {@code c}, which sits at
+         * the given nesting depth.
+         */
+        private void skipValue(int c, int depth) throws IOException {
+            if (c == '"') {
+                readString();
+            } else if (c == '{' || c == '[') {
+                if (depth >= MAX_DEPTH) {
+                    throw new MalformedResponseException("Response is nested too deeply");
+                }
+                skipContainer(c == '{' ? '}' : ']', depth + 1);
+            } else if (c == 't') {
+                skipKeyword("rue");
+            } else if (c == 'f') {
+                skipKeyword("alse");
+            } else if (c == 'n') {
+                skipKeyword("ull");
+            } else {
+                skipNumber(c);
+            }
+        }
+
+        /**
+         * Skips the members of an object or the elements of an array whose
+         * opening bracket has been consumed, up to the matching
+         * {@code close}.
+         */
+        private void skipContainer(int close, int depth) throws IOException {
+            int c = nextNonWhitespace();
+            if (c == close) {
+                return;
+            }
+            while (true) {
+                if (close == '}') {
+                    if (c != '"') {
+                        throw syntaxError();
+                    }
+                    readString();
+                    if (nextNonWhitespace() != ':') {
+                        throw syntaxError();
+                    }
+                    c = nextNonWhitespace();
+                }
+                skipValue(c, depth);
+
+                c = nextNonWhitespace();
+                if (c == close) {
+                    return;
+                } else if (c != ',') {
+                    throw syntaxError();
+                }
+                c = nextNonWhitespace();
+            }
+        }
+
+        private void skipKeyword(String rest) throws IOException {
+            for (int i = 0; i < rest.length(); i++) {
+                if (read() != rest.charAt(i)) {
+                    throw syntaxError();
+                }
+            }
+        }
+
+        private void skipNumber(int c) throws IOException {
+            if (!isNumber(c)) {
+                throw syntaxError();
+            }
+            do {
+                c = read();
+            } while (isNumber(c));
+            if (c != -1) {
+                unread();
+            }
+        }
+
+        private static boolean isNumber(int c) {
+            return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+        }
+
+        private int matchField() {
+            if (equalsString(FIELD_ACCESS_TOKEN)) {
+                return FIELD_TOKEN;
+            } else if (equalsString(FIELD_ERROR)) {
+                return FIELD_ERROR_CODE;
+            }
+            return FIELD_OTHER;
+        }
+
+        private boolean equalsString(byte[] expected) {
+            if (mStringLength != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                if (mString[i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String currentString() {
+            return new String(mString, 0, mStringLength, UTF_8);
+        }
+
+        private void append(int b) {
+            if (mStringLength == mString.length) {
+                byte[] grown = new byte[mString.length * 2];
+                System.arraycopy(mString, 0, grown, 0, mStringLength);
+                mString = grown;
+            }
+            mString[mStringLength++] = (byte) b;
+        }
+
+        private void appendCodePoint(int codePoint) {
+            if (codePoint < 0x80) {
+                append(codePoint);
+            } else if (codePoint < 0x800) {
+                append(0xC0 | (codePoint >> 6));
+                append(0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                append(0xE0 | (codePoint >> 12));
+                append(0x80 | ((codePoint >> 6) & 0x3F));
+                append(0x80 | (codePoint & 0x3F));
+            } else {
+                append(0xF0 | (codePoint >> 18));
+                append(0x80 | ((codePoint >> 12) & 0x3F));
+                append(0x80 | ((codePoint >> 6) & 0x3F));
+                append(0x80 | (codePoint & 0x3F));
+            }
+        }
+
+        private MalformedResponseException syntaxError() {
+            return new MalformedResponseException("Malformed JSON at byte " + (mConsumed - mLimit + mPos));
+        }
+    }
+}
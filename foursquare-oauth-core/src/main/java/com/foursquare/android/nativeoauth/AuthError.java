@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+/**
+ * The outcome of a connect request, as reported back in the result intent
+ * by the Foursquare app or the web view fallback.
+ * 
+ * @date 2026-10-17
+ */
+enum AuthError {
+    NONE,
+    DENIED,
+    INVALID_REQUEST,
+    UNSUPPORTED_VERSION,
+    INTERNAL_ERROR,
+    /** Any other OAuth error code, see RFC 6749 section 5.2. */
+    OAUTH;
+
+    static final String ERROR_CODE_UNSUPPORTED_VERSION = "unsupported_version";
+    static final String ERROR_CODE_INVALID_REQUEST = "invalid_request";
+    static final String ERROR_CODE_INTERNAL_ERROR = "internal_error";
+
+    static AuthError classify(boolean denied, String errorCode) {
+        if (denied) {
+            return DENIED;
+        } else if (errorCode == null || errorCode.length() == 0) {
+            return NONE;
+        } else if (ERROR_CODE_INVALID_REQUEST.equals(errorCode)) {
+            return INVALID_REQUEST;
+        } else if (ERROR_CODE_UNSUPPORTED_VERSION.equals(errorCode)) {
+            return UNSUPPORTED_VERSION;
+        } else if (ERROR_CODE_INTERNAL_ERROR.equals(errorCode)) {
+            return INTERNAL_ERROR;
+        }
+        return OAUTH;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.nio.charset.Charset;
+
+/**
+ * Builds the {@code foursquareauth://authorize} uri sent to the Foursquare
+ * app, or to {@code FoursquareOAuthWebviewActivity} when the app is missing.
+ * Query values are percent-encoded like {@code android.net.Uri.encode}.
+ * 
+ * @date 2026-10-17
+ */
+final class ConnectUris {
+
+    static final String URI_SCHEME = "foursquareauth";
+    static final String URI_AUTHORITY = "authorize";
+    static final String PARAM_CLIENT_ID = "client_id";
+    static final String PARAM_SIGNATURE = "androidKeyHash";
+    static final String PARAM_VERSION = "v";
+    static final String PARAM_STATE = "state";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private ConnectUris() {
+    }
+
+    /**
+     * @param signature the app's key hash, or null to leave it out. A missing
+     *          key hash is reported as an invalid request by the receiver.
+     */
+    static String buildConnectUri(String clientId, int version, String signature) {
+        return buildConnectUri(clientId, version, signature, null);
+    }
+
+    /**
+     * @param state an opaque value returned with the result, or null to leave
+     *          it out. Used to tell concurrent connect requests apart.
+     */
+    static String buildConnectUri(String clientId, int version, String signature, String state) {
+        StringBuilder uri = new StringBuilder(128);
+        uri.append(URI_SCHEME).append("://").append(URI_AUTHORITY);
+        uri.append('?').append(PARAM_CLIENT_ID).append('=');
+        encode(clientId, uri);
+        uri.append('&').append(PARAM_VERSION).append('=').append(version);
+        if (signature != null) {
+            uri.append('&').append(PARAM_SIGNATURE).append('=');
+            encode(signature, uri);
+        }
+        if (state != null) {
+            uri.append('&').append(PARAM_STATE).append('=');
+            encode(state, uri);
+        }
+        return uri.toString();
+    }
+
+    /**
+     * Appends the value with everything but unreserved characters
+     * percent-encoded as UTF-8. A null value is appended as an empty string.
+     */
+    static void encode(String value, StringBuilder out) {
+        if (value == null) {
+            return;
+        }
+
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (isAllowed(c)) {
+                out.append(c);
+                continue;
+            }
+
+            // Encode the whole run of disallowed characters at once, so
+            // surrogate pairs become a single UTF-8 sequence.
+            int end = i + 1;
+            while (end < length && !isAllowed(value.charAt(end))) {
+                end++;
+            }
+            byte[] bytes = value.substring(i, end).getBytes(UTF_8);
+            for (byte b : bytes) {
+                out.append('%');
+                out.append(HEX_DIGITS[(b & 0xF0) >>> 4]);
+                out.append(HEX_DIGITS[b & 0x0F]);
+            }
+            i = end - 1;
+        }
+    }
+
+    private static boolean isAllowed(char c) {
+        return (c >= 'A' && c <= 'Z')
+                || (c >= 'a' && c <= 'z')
+                || (c >= '0' && c <= '9')
+                || "_-!.~'()*".indexOf(c) != -1;
+    }
+}
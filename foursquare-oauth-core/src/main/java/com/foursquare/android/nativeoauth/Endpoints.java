@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * Checks endpoint overrides. Client secrets and tokens may only be sent
+ * over https, or over plain http to a stub on the loopback interface,
+ * where they never leave the device.
+ * 
+ * @date 2026-10-17
+ */
+final class Endpoints {
+
+    private Endpoints() {
+    }
+
+    /**
+     * @return the endpoint, if it is https or http to a loopback host.
+     * @throws IllegalArgumentException if the endpoint is not a url, or is
+     *         plain http to any other host.
+     */
+    static String requireSecure(String endpoint) {
+        URL url;
+        try {
+            url = new URL(endpoint);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Malformed endpoint " + endpoint, e);
+        }
+        String protocol = url.getProtocol();
+        if ("https".equals(protocol) || ("http".equals(protocol) && isLoopback(url.getHost()))) {
+            return endpoint;
+        }
+        throw new IllegalArgumentException("Endpoint must use https unless its host is loopback: " + endpoint);
+    }
+
+    /**
+     * Only looks at the host as written, it is never resolved.
+     */
+    static boolean isLoopback(String host) {
+        if ("localhost".equalsIgnoreCase(host) || "[::1]".equals(host)) {
+            return true;
+        }
+        if (!host.startsWith("127.")) {
+            return false;
+        }
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+/**
+ * Formats certificate digests the way Foursquare expects the
+ * {@code androidKeyHash} parameter.
+ * 
+ * @date 2026-10-17
+ */
+final class Fingerprints {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private Fingerprints() {
+    }
+
+    /**
+     * Formats the digest as colon delimited upper case hex pairs, e.g.
+     * {@code 0A:1B:2C}, filling a single char array from a lookup table.
+     */
+    static String toHex(byte[] digest) {
+        if (digest.length == 0) {
+            return "";
+        }
+
+        char[] out = new char[digest.length * 3 - 1];
+        int pos = 0;
+        for (int i = 0; i < digest.length; i++) {
+            if (i > 0) {
+                out[pos++] = ':';
+            }
+            int b = digest[i] & 0xFF;
+            out[pos++] = HEX_DIGITS[b >>> 4];
+            out[pos++] = HEX_DIGITS[b & 0x0F];
+        }
+        return new String(out);
+    }
+}
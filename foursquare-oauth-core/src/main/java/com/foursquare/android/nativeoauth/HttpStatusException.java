@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the token endpoint answers with an HTTP error and a body that
+ * does not carry an OAuth error code.
+ * 
+ * @date 2026-10-17
+ */
+final class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int mStatus;
+
+    HttpStatusException(int status) {
+        super("HTTP " + status);
+        mStatus = status;
+    }
+
+    int getStatus() {
+        return mStatus;
+    }
+
+    /**
+     * Request timeouts, rate limiting and an unavailable server are worth
+     * another attempt, since the code was not redeemed. Other server errors
+     * may have come after the code was used up.
+     */
+    boolean isRetryable() {
+        return mStatus == 408 || mStatus == 429 || mStatus == 503;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the token endpoint response was received in full but could
+ * not be understood. Unlike a network error, this is never retried.
+ * 
+ * @date 2026-10-17
+ */
+final class MalformedResponseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    MalformedResponseException(String message) {
+        super(message);
+    }
+
+    MalformedResponseException(Throwable cause) {
+        super(cause.getMessage(), cause);
+    }
+}
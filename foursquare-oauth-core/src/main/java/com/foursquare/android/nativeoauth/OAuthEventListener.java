@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+/**
+ * Receives timings for each phase of the connect and token exchange flow.
+ * <br>
+ * <br>
+ * Timestamps come from {@link System#nanoTime()}, so they can be subtracted
+ * from each other but are not wall clock times. Phases of the token
+ * exchange, such as {@link OAuthPhase#DNS} and {@link OAuthPhase#TLS}, are
+ * reported once per attempt. {@link OAuthPhase#DNS}, {@link OAuthPhase#CONNECT}
+ * and {@link OAuthPhase#TLS} are skipped when a pooled connection is reused.
+ * <br>
+ * <br>
+ * Methods are called on the thread that finished the phase, which is often
+ * not the main thread, and should return quickly. When no listener is set
+ * the library does not read the clock at all.
+ * 
+ * <pre>
+ * {@code
+ * FoursquareOAuth.setEventListener(new OAuthEventListener() {
+ *     @Override
+ *     public void onPhase(OAuthPhase phase, long startNanos, long endNanos,
+ *             OAuthOutcome outcome, String errorCode) {
+ *         Log.d("OAuth", phase + " " + (endNanos - startNanos) / 1000000 + "ms " + outcome);
+ *     }
+ * });
+ * }
+ * </pre>
+ * 
+ * @date 2026-10-17
+ */
+public abstract class OAuthEventListener {
+
+    /**
+     * Called when a phase ends.
+     * 
+     * @param phase the phase that ended.
+     * @param startNanos when the phase started.
+     * @param endNanos when the phase ended.
+     * @param outcome how the phase ended.
+     * @param errorCode the OAuth error code, such as {@code invalid_grant},
+     *          or the kind of failure, such as {@code SocketTimeoutException}
+     *          or {@code http_503}. Null unless the outcome is
+     *          {@link OAuthOutcome#ERROR}.
+     */
+    public void onPhase(OAuthPhase phase, long startNanos, long endNanos, OAuthOutcome outcome, String errorCode) {
+    }
+}
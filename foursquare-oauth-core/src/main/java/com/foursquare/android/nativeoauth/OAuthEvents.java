@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.io.IOException;
+
+/**
+ * Dispatches phase timings to the registered {@link OAuthEventListener}.
+ * <br>
+ * <br>
+ * Call sites take a start time with {@link #start()}, which is 0 when no
+ * listener is set, and pass it back to {@link #end}. A phase that started
+ * before a listener was set is dropped rather than reported with a bogus
+ * start time.
+ * 
+ * @date 2026-10-17
+ */
+final class OAuthEvents {
+
+    private static volatile OAuthEventListener sListener;
+
+    private OAuthEvents() {
+    }
+
+    static void setListener(OAuthEventListener listener) {
+        sListener = listener;
+    }
+
+    static boolean isEnabled() {
+        return sListener != null;
+    }
+
+    static long start() {
+        return sListener != null ? System.nanoTime() : 0L;
+    }
+
+    static void end(OAuthPhase phase, long startNanos, OAuthOutcome outcome, String errorCode) {
+        if (startNanos != 0L) {
+            end(phase, startNanos, System.nanoTime(), outcome, errorCode);
+        }
+    }
+
+    static void end(OAuthPhase phase, long startNanos, long endNanos, OAuthOutcome outcome, String errorCode) {
+        OAuthEventListener listener = sListener;
+        if (listener != null && startNanos != 0L) {
+            listener.onPhase(phase, startNanos, endNanos, outcome, errorCode);
+        }
+    }
+
+    static void success(OAuthPhase phase, long startNanos) {
+        end(phase, startNanos, OAuthOutcome.SUCCESS, null);
+    }
+
+    /**
+     * Maps a failure to the error code reported for it. HTTP errors are
+     * reported by status, everything else by exception class.
+     */
+    static String errorCode(Throwable e) {
+        if (e instanceof HttpStatusException) {
+            return "http_" + ((HttpStatusException) e).getStatus();
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    static void failure(OAuthPhase phase, long startNanos, IOException e) {
+        if (startNanos != 0L) {
+            end(phase, startNanos, OAuthOutcome.ERROR, errorCode(e));
+        }
+    }
+}
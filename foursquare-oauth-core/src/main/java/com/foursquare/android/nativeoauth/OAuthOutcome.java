@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2020 Foursquare Labs, Inc.
+ * Copyright (C) 2026 Foursquare Labs, Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -13,17 +13,23 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.foursquare.android.sample
+package com.foursquare.android.nativeoauth;
 
 /**
- * Used as an example of holding onto a fetched token. You'd want to persist
- * the token in a real application so the user does not have to authenticate
- * every time they use the app.
- *
- * Note that you should encrypt the token when persisting.
- *
- * @date 2013-06-01
+ * How a phase reported to an {@link OAuthEventListener} ended.
+ * 
+ * @date 2026-10-17
  */
-object ExampleTokenStore {
-    var token: String? = null
-}
\ No newline at end of file
+public enum OAuthOutcome {
+
+    SUCCESS,
+
+    /** The user declined to connect. */
+    DENIED,
+
+    /** The phase failed, the listener is given an error code. */
+    ERROR,
+
+    /** The user left or the exchange was cancelled before it completed. */
+    CANCELLED
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+/**
+ * The timed steps of connecting a user and exchanging the auth code, as
+ * reported to an {@link OAuthEventListener}.
+ * 
+ * @date 2026-10-17
+ */
+public enum OAuthPhase {
+
+    /** Computing the SHA-1 fingerprint of the app's signing certificate. */
+    FINGERPRINT,
+
+    /** Checking whether the Foursquare app can handle the connect intent. */
+    RESOLVE_NATIVE_APP,
+
+    /** One page load in the web login, from start to finish. */
+    WEB_PAGE_LOAD,
+
+    /**
+     * The whole web login, from loading the login page until Foursquare
+     * redirects back with a code or an error, or the user leaves.
+     */
+    WEB_AUTHORIZE,
+
+    /** The whole token exchange, including retries. */
+    TOKEN_EXCHANGE,
+
+    /** Resolving the token endpoint host for a new connection. */
+    DNS,
+
+    /** Opening a new TCP connection to the token endpoint. */
+    CONNECT,
+
+    /** The TLS handshake on a new connection. */
+    TLS,
+
+    /** From the request being sent until the response status arrives. */
+    FIRST_BYTE,
+
+    /** Reading and parsing the response body. */
+    PARSE
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+/**
+ * Recognizes the urls that end the web authorization flow: the
+ * {@code foursquareauth://callback} redirect and the authenticate page
+ * reloaded with {@code denied=1}.
+ * <br>
+ * <br>
+ * Every navigation in the flow goes through {@link #match(String)}, so it
+ * works on the url string in place and does not allocate. Only the values
+ * read with {@link #getQueryParameter(String, String)} once a url matched
+ * are copied out.
+ *
+ * @date 2026-10-17
+ */
+final class RedirectMatcher {
+
+    static final int NO_MATCH = 0;
+    static final int CALLBACK = 1;
+    static final int DENIED = 2;
+
+    static final String CALLBACK_PREFIX = "foursquareauth://callback";
+    static final String AUTHENTICATE_PREFIX = "https://foursquare.com/oauth2/authenticate?";
+
+    static final String PARAM_CODE = "code";
+    static final String PARAM_ERROR = "error";
+    static final String PARAM_STATE = "state";
+    static final String PARAM_DENIED = "denied";
+
+    private RedirectMatcher() {
+    }
+
+    /**
+     * @return {@link #CALLBACK}, {@link #DENIED} or {@link #NO_MATCH}.
+     */
+    static int match(String url) {
+        if (url == null) {
+            return NO_MATCH;
+        }
+
+        int length = CALLBACK_PREFIX.length();
+        if (url.regionMatches(true, 0, CALLBACK_PREFIX, 0, length)) {
+            // The authority has to end here, foursquareauth://callbacks is
+            // something else.
+            if (url.length() == length) {
+                return CALLBACK;
+            }
+            char c = url.charAt(length);
+            return c == '/' || c == '?' || c == '#' ? CALLBACK : NO_MATCH;
+        }
+
+        if (url.regionMatches(true, 0, AUTHENTICATE_PREFIX, 0, AUTHENTICATE_PREFIX.length())
+                && hasQueryParameter(url, PARAM_DENIED, "1")) {
+            return DENIED;
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * @return true if the first {@code name} parameter of the query is
+     *          exactly {@code value}, compared without decoding.
+     */
+    static boolean hasQueryParameter(String url, String name, String value) {
+        int start = findValue(url, name);
+        if (start < 0) {
+            return false;
+        }
+        int end = valueEnd(url, start);
+        return end - start == value.length() && url.regionMatches(start, value, 0, value.length());
+    }
+
+    /**
+     * @return the decoded value of the first {@code name} parameter of the
+     *          query, an empty string if it has no value, or null if it is
+     *          missing. Like {@code android.net.Uri#getQueryParameter}, a
+     *          {@code +} decodes to a space.
+     */
+    static String getQueryParameter(String url, String name) {
+        int start = findValue(url, name);
+        if (start < 0) {
+            return null;
+        }
+        return decode(url, start, valueEnd(url, start));
+    }
+
+    /**
+     * @return the index where the value of the first {@code name} parameter
+     *          starts, or -1 if the query has no such parameter.
+     */
+    private static int findValue(String url, String name) {
+        int query = url.indexOf('?');
+        if (query < 0) {
+            return -1;
+        }
+        int fragment = url.indexOf('#', query);
+        int limit = fragment < 0 ? url.length() : fragment;
+        int nameLength = name.length();
+
+        int i = query + 1;
+        while (i < limit) {
+            int end = url.indexOf('&', i);
+            if (end < 0 || end > limit) {
+                end = limit;
+            }
+            if (end - i >= nameLength && url.regionMatches(i, name, 0, nameLength)) {
+                int after = i + nameLength;
+                if (after == end) {
+                    return after;
+                }
+                if (url.charAt(after) == '=') {
+                    return after + 1;
+                }
+            }
+            i = end + 1;
+        }
+        return -1;
+    }
+
+    private static int valueEnd(String url, int start) {
+        int length = url.length();
+        for (int i = start; i < length; i++) {
+            char c = url.charAt(i);
+            if (c == '&' || c == '#') {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static String decode(String url, int start, int end) {
+        String value = url.substring(start, end);
+        if (value.indexOf('%') < 0 && value.indexOf('+') < 0) {
+            return value;
+        }
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return value;
+        } catch (IllegalArgumentException e) {
+            // A malformed escape, keep the value as it was sent.
+            return value;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.util.Random;
+
+/**
+ * Controls how long a token exchange may take and how transient failures
+ * are retried.
+ * <br>
+ * <br>
+ * Every attempt gets its own connect and read timeouts, both capped by
+ * what is left of the total deadline, and the deadline is checked again
+ * between reads of the response. Between attempts the exchange waits
+ * for an exponentially growing backoff with random jitter. Since an auth
+ * code can only be exchanged once, only network errors from before the
+ * request was sent and HTTP 408, 429 and 503 responses are retried. An
+ * OAuth error returned by Foursquare, such as {@code invalid_grant}, is
+ * never retried.
+ * 
+ * <pre>
+ * {@code
+ * FoursquareOAuth.setTokenExchangeRetryPolicy(new RetryPolicy.Builder()
+ *         .setTotalDeadlineMillis(20000)
+ *         .setMaxAttempts(4)
+ *         .build());
+ * }
+ * </pre>
+ * 
+ * @date 2026-10-17
+ */
+public final class RetryPolicy {
+
+    /** The policy used unless another one is set. */
+    public static final RetryPolicy DEFAULT = new Builder().build();
+
+    /** A single attempt with the default timeouts. */
+    public static final RetryPolicy NO_RETRY = new Builder().setMaxAttempts(1).build();
+
+    private final long mTotalDeadlineMillis;
+    private final int mConnectTimeoutMillis;
+    private final int mReadTimeoutMillis;
+    private final int mMaxAttempts;
+    private final long mInitialBackoffMillis;
+    private final long mMaxBackoffMillis;
+
+    private RetryPolicy(Builder builder) {
+        mTotalDeadlineMillis = builder.mTotalDeadlineMillis;
+        mConnectTimeoutMillis = builder.mConnectTimeoutMillis;
+        mReadTimeoutMillis = builder.mReadTimeoutMillis;
+        mMaxAttempts = builder.mMaxAttempts;
+        mInitialBackoffMillis = builder.mInitialBackoffMillis;
+        mMaxBackoffMillis = builder.mMaxBackoffMillis;
+    }
+
+    public long getTotalDeadlineMillis() {
+        return mTotalDeadlineMillis;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return mConnectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return mReadTimeoutMillis;
+    }
+
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    public long getInitialBackoffMillis() {
+        return mInitialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return mMaxBackoffMillis;
+    }
+
+    /**
+     * Returns how long to wait before the given retry, counting from 1. The
+     * delay doubles with every retry up to the maximum backoff, and a random
+     * value between half of it and all of it is picked.
+     */
+    long getBackoffMillis(int retry, Random random) {
+        long backoff = mInitialBackoffMillis;
+        for (int i = 1; i < retry && backoff < mMaxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, mMaxBackoffMillis);
+        long half = backoff / 2;
+        return half + (long) (random.nextDouble() * (backoff - half));
+    }
+
+    public static final class Builder {
+        private long mTotalDeadlineMillis = 30000;
+        private int mConnectTimeoutMillis = 10000;
+        private int mReadTimeoutMillis = 15000;
+        private int mMaxAttempts = 3;
+        private long mInitialBackoffMillis = 500;
+        private long mMaxBackoffMillis = 4000;
+
+        /**
+         * Sets the time after which the exchange fails, however many
+         * attempts are left. Defaults to 30 seconds.
+         */
+        public Builder setTotalDeadlineMillis(long totalDeadlineMillis) {
+            mTotalDeadlineMillis = requirePositive(totalDeadlineMillis, "totalDeadlineMillis");
+            return this;
+        }
+
+        /** Defaults to 10 seconds. */
+        public Builder setConnectTimeoutMillis(int connectTimeoutMillis) {
+            mConnectTimeoutMillis = (int) requirePositive(connectTimeoutMillis, "connectTimeoutMillis");
+            return this;
+        }
+
+        /** Defaults to 15 seconds. */
+        public Builder setReadTimeoutMillis(int readTimeoutMillis) {
+            mReadTimeoutMillis = (int) requirePositive(readTimeoutMillis, "readTimeoutMillis");
+            return this;
+        }
+
+        /** Includes the first attempt. Defaults to 3. */
+        public Builder setMaxAttempts(int maxAttempts) {
+            mMaxAttempts = (int) requirePositive(maxAttempts, "maxAttempts");
+            return this;
+        }
+
+        /** Defaults to 500 milliseconds. */
+        public Builder setInitialBackoffMillis(long initialBackoffMillis) {
+            mInitialBackoffMillis = requirePositive(initialBackoffMillis, "initialBackoffMillis");
+            return this;
+        }
+
+        /** Defaults to 4 seconds. */
+        public Builder setMaxBackoffMillis(long maxBackoffMillis) {
+            mMaxBackoffMillis = requirePositive(maxBackoffMillis, "maxBackoffMillis");
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (mMaxBackoffMillis < mInitialBackoffMillis) {
+                throw new IllegalArgumentException("maxBackoffMillis < initialBackoffMillis");
+            }
+            return new RetryPolicy(this);
+        }
+
+        private static long requirePositive(long value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Sends the access token request as a form encoded POST, so the client secret
+ * stays out of the request line.
+ * <br>
+ * <br>
+ * Every exchange shares one {@link SSLSocketFactory}, which lets the platform
+ * pool keep-alive connections and resume TLS sessions across exchanges. The
+ * response is always read to the end and the stream closed, never
+ * disconnected, so the socket can go back to the pool.
+ * <br>
+ * <br>
+ * The total deadline caps each attempt's connect and read timeouts and is
+ * checked again before the request is sent and before every read of the
+ * response, so a server that trickles its answer cannot hold the exchange
+ * past it. A single blocked socket read can still overrun the deadline by
+ * at most its read timeout.
+ * <br>
+ * <br>
+ * An auth code can only be exchanged once, so an attempt is only retried
+ * when it failed before its body was written, or when the endpoint
+ * answered with a status that means the code was not looked at.
+ * 
+ * @date 2026-10-17
+ */
+final class TokenExchangeTransport {
+
+    static final String ACCESS_TOKEN_URL = "https://foursquare.com/oauth2/access_token";
+
+    private static final int TLS_SESSION_CACHE_SIZE = 8;
+    private static final int TLS_SESSION_TIMEOUT_SECONDS = 60 * 60;
+
+    private static final String CHARSET = "UTF-8";
+
+    private static final Random RANDOM = new Random();
+
+    private static volatile RetryPolicy sRetryPolicy = RetryPolicy.DEFAULT;
+
+    private static volatile String sEndpoint = ACCESS_TOKEN_URL;
+
+    private static SSLSocketFactory sSocketFactory;
+    private static ExecutorService sDnsExecutor;
+
+    private TokenExchangeTransport() {
+    }
+
+    static void setRetryPolicy(RetryPolicy retryPolicy) {
+        sRetryPolicy = retryPolicy != null ? retryPolicy : RetryPolicy.DEFAULT;
+    }
+
+    /**
+     * Points exchanges at a different token endpoint, such as a local stub.
+     * Plain http is only allowed to a loopback host, so a local stub does
+     * not need a certificate but the client secret never leaves the device
+     * unencrypted.
+     *
+     * @throws IllegalArgumentException if the endpoint is not https and its
+     *         host is not loopback.
+     */
+    static void setEndpoint(String endpoint) {
+        sEndpoint = endpoint != null ? Endpoints.requireSecure(endpoint) : ACCESS_TOKEN_URL;
+    }
+
+    static AccessTokenParser.Result exchange(String clientId, String clientSecret, String authCode) throws IOException {
+        return exchange(clientId, clientSecret, authCode, null);
+    }
+
+    /**
+     * Exchanges the auth code and parses the response, retrying transient
+     * failures as allowed by the current {@link RetryPolicy}. Error responses
+     * are parsed too, since their JSON body carries the OAuth error code, and
+     * returned rather than thrown.
+     *
+     * @param redirectUri the redirect uri the code was requested with, which
+     *          the endpoint requires again, or null if none was sent.
+     */
+    static AccessTokenParser.Result exchange(String clientId, String clientSecret, String authCode,
+            String redirectUri) throws IOException {
+        RetryPolicy policy = sRetryPolicy;
+        URL endpoint = new URL(sEndpoint);
+        byte[] body = buildForm(clientId, clientSecret, authCode, redirectUri);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.getTotalDeadlineMillis());
+
+        for (int attempt = 1; ; attempt++) {
+            long remaining = remainingMillis(deadline);
+            Attempt progress = new Attempt();
+            try {
+                return post(endpoint, body, deadline,
+                        (int) Math.min(policy.getConnectTimeoutMillis(), remaining),
+                        (int) Math.min(policy.getReadTimeoutMillis(), remaining), progress);
+            } catch (IOException e) {
+                if (attempt >= policy.getMaxAttempts() || !isRetryable(e, progress.mBodySent)) {
+                    throw e;
+                }
+                long backoff = policy.getBackoffMillis(attempt, RANDOM);
+                if (deadline - System.nanoTime() <= 0L || backoff >= remainingMillis(deadline)) {
+                    throw e;
+                }
+                sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * Resolves the token endpoint and opens a connection to it with a HEAD
+     * request, so the next exchange finds the address cached, the socket in
+     * the platform's keep-alive pool and the TLS session ready to resume.
+     * The response status does not matter, only that one arrived.
+     */
+    static void preconnect(int timeoutMillis) throws IOException {
+        URL endpoint = new URL(sEndpoint);
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        try {
+            if (connection instanceof HttpsURLConnection) {
+                ((HttpsURLConnection) connection).setSSLSocketFactory(getSocketFactory());
+            }
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setUseCaches(false);
+            connection.setRequestMethod("HEAD");
+
+            int status = connection.getResponseCode();
+            // A HEAD response has no body, closing the stream hands the
+            // socket back to the pool.
+            InputStream in = status >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getErrorStream()
+                    : connection.getInputStream();
+            if (in != null) {
+                in.close();
+            }
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private static AccessTokenParser.Result post(URL endpoint, byte[] body, long deadline,
+            int connectTimeoutMillis, int readTimeoutMillis, Attempt attempt) throws IOException {
+        TracingSSLSocketFactory.Trace trace = null;
+        long dnsStart = 0L;
+        long dnsEnd = 0L;
+        if (OAuthEvents.isEnabled()) {
+            // Resolved up front only to time the lookup, the connection then
+            // gets the address from the platform cache. The lookup comes out
+            // of the connect timeout, so timing it never makes an attempt
+            // take longer.
+            dnsStart = System.nanoTime();
+            try {
+                resolve(endpoint.getHost(), connectTimeoutMillis);
+            } catch (IOException e) {
+                OAuthEvents.failure(OAuthPhase.DNS, dnsStart, e);
+                throw e;
+            }
+            dnsEnd = System.nanoTime();
+            connectTimeoutMillis = (int) Math.max(1,
+                    connectTimeoutMillis - TimeUnit.NANOSECONDS.toMillis(dnsEnd - dnsStart));
+            checkDeadline(deadline);
+            trace = TracingSSLSocketFactory.begin();
+        }
+        OAuthPhase phase = OAuthPhase.CONNECT;
+        long phaseStart = dnsEnd;
+
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        try {
+            if (connection instanceof HttpsURLConnection) {
+                ((HttpsURLConnection) connection).setSSLSocketFactory(getSocketFactory());
+            }
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(readTimeoutMillis);
+            connection.setUseCaches(false);
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=" + CHARSET);
+            connection.setFixedLengthStreamingMode(body.length);
+
+            OutputStream out = connection.getOutputStream();
+            if (trace != null) {
+                phaseStart = reportConnect(connection, trace, dnsStart, dnsEnd);
+                phase = OAuthPhase.FIRST_BYTE;
+            }
+            try {
+                checkDeadline(deadline);
+                // From here on the server may have received the code.
+                attempt.mBodySent = true;
+                out.write(body);
+            } finally {
+                out.close();
+            }
+
+            int status = connection.getResponseCode();
+            if (trace != null) {
+                OAuthEvents.success(phase, phaseStart);
+                phase = OAuthPhase.PARSE;
+                phaseStart = System.nanoTime();
+            }
+            InputStream in = status >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getErrorStream()
+                    : connection.getInputStream();
+            if (in == null) {
+                throw new HttpStatusException(status);
+            }
+            try {
+                AccessTokenParser.Result result = AccessTokenParser.parse(new DeadlineInputStream(in, deadline));
+                OAuthEvents.success(phase, phaseStart);
+                return result;
+            } catch (MalformedResponseException e) {
+                // Proxies and load balancers answer errors with HTML.
+                if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                    throw new HttpStatusException(status);
+                }
+                throw e;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            if (trace != null) {
+                if (phase == OAuthPhase.CONNECT && trace.mTlsStartNanos != 0L) {
+                    phase = OAuthPhase.TLS;
+                    phaseStart = trace.mTlsStartNanos;
+                }
+                OAuthEvents.failure(phase, phaseStart, e);
+            }
+            // The socket is in an unknown state, make sure it is not reused.
+            connection.disconnect();
+            throw e;
+        } finally {
+            if (trace != null) {
+                TracingSSLSocketFactory.end();
+            }
+        }
+    }
+
+    /**
+     * Resolves the host on the DNS pool and waits at most the timeout for
+     * it. A lookup that times out keeps running and still fills the
+     * platform cache, but the attempt fails with a
+     * {@link SocketTimeoutException}.
+     */
+    private static void resolve(final String host, int timeoutMillis) throws IOException {
+        Future<InetAddress[]> lookup = getDnsExecutor().submit(new Callable<InetAddress[]>() {
+            @Override
+            public InetAddress[] call() throws UnknownHostException {
+                return InetAddress.getAllByName(host);
+            }
+        });
+        try {
+            lookup.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new SocketTimeoutException("DNS lookup of " + host + " timed out");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Token exchange cancelled");
+        }
+    }
+
+    private static synchronized ExecutorService getDnsExecutor() {
+        if (sDnsExecutor == null) {
+            sDnsExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "FoursquareOAuth-dns");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sDnsExecutor;
+    }
+
+    /**
+     * Reports the DNS, connect and TLS phases of a new connection and returns
+     * when the connection became ready. A reused https connection is not
+     * reported. Reuse of plain http connections cannot be detected, so they
+     * are always reported.
+     */
+    private static long reportConnect(HttpURLConnection connection, TracingSSLSocketFactory.Trace trace,
+            long dnsStart, long dnsEnd) {
+        long ready = System.nanoTime();
+        long tlsStart = trace.mTlsStartNanos;
+        boolean https = connection instanceof HttpsURLConnection;
+        if (https && tlsStart == 0L) {
+            return ready;
+        }
+
+        OAuthEvents.end(OAuthPhase.DNS, dnsStart, dnsEnd, OAuthOutcome.SUCCESS, null);
+        if (https) {
+            long tlsEnd = trace.mTlsEndNanos;
+            OAuthEvents.end(OAuthPhase.CONNECT, dnsEnd, tlsStart, OAuthOutcome.SUCCESS, null);
+            OAuthEvents.end(OAuthPhase.TLS, tlsStart, tlsEnd != 0L ? tlsEnd : ready, OAuthOutcome.SUCCESS, null);
+        } else {
+            OAuthEvents.end(OAuthPhase.CONNECT, dnsEnd, ready, OAuthOutcome.SUCCESS, null);
+        }
+        return ready;
+    }
+
+    /**
+     * Responses that arrived but could not be used are only retried for the
+     * HTTP statuses listed in {@link HttpStatusException#isRetryable()}.
+     * Other failures are only retried if they happened before the body was
+     * written, such as a failed DNS lookup, a refused or timed out connect,
+     * or a TLS setup that broke off. Once the body is out, the server may
+     * have redeemed the code, and presenting it again would fail with
+     * {@code invalid_grant} or revoke the token it issued. Certificate
+     * errors will not go away on their own and are not retried either.
+     */
+    private static boolean isRetryable(IOException e, boolean bodySent) {
+        if (e instanceof HttpStatusException) {
+            return ((HttpStatusException) e).isRetryable();
+        }
+        if (bodySent || e instanceof MalformedResponseException || e instanceof SSLPeerUnverifiedException
+                || (e instanceof SSLHandshakeException && e.getCause() instanceof CertificateException)) {
+            return false;
+        }
+        // A plain InterruptedIOException means the exchange was cancelled.
+        return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+    }
+
+    private static void checkDeadline(long deadline) throws SocketTimeoutException {
+        if (deadline - System.nanoTime() <= 0L) {
+            throw new SocketTimeoutException("Token exchange deadline exceeded");
+        }
+    }
+
+    private static long remainingMillis(long deadline) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Token exchange cancelled");
+        }
+    }
+
+    private static byte[] buildForm(String clientId, String clientSecret, String authCode, String redirectUri)
+            throws UnsupportedEncodingException {
+        StringBuilder form = new StringBuilder(128);
+        form.append("client_id=").append(URLEncoder.encode(clientId, CHARSET));
+        form.append("&client_secret=").append(URLEncoder.encode(clientSecret, CHARSET));
+        form.append("&grant_type=authorization_code");
+        form.append("&code=").append(URLEncoder.encode(authCode, CHARSET));
+        if (redirectUri != null) {
+            form.append("&redirect_uri=").append(URLEncoder.encode(redirectUri, CHARSET));
+        }
+        return form.toString().getBytes(CHARSET);
+    }
+
+    /**
+     * Whether an attempt got as far as writing its body.
+     */
+    private static final class Attempt {
+        boolean mBodySent;
+    }
+
+    /**
+     * Fails the next read once the deadline has passed. The exception is a
+     * {@link SocketTimeoutException}, and the retry loop stops because no
+     * time is left for another attempt.
+     */
+    private static final class DeadlineInputStream extends FilterInputStream {
+
+        private final long mDeadline;
+
+        DeadlineInputStream(InputStream in, long deadline) {
+            super(in);
+            mDeadline = deadline;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkDeadline(mDeadline);
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkDeadline(mDeadline);
+            return super.read(b, off, len);
+        }
+    }
+
+    static synchronized SSLSocketFactory getSocketFactory() {
+        if (sSocketFactory == null) {
+            try {
+                SSLContext sslContext = SSLContext.getInstance("TLS");
+                sslContext.init(null, null, null);
+                SSLSessionContext sessions = sslContext.getClientSessionContext();
+                sessions.setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+                sessions.setSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+                sSocketFactory = new TracingSSLSocketFactory(sslContext.getSocketFactory());
+            } catch (GeneralSecurityException e) {
+                sSocketFactory = new TracingSSLSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory());
+            }
+        }
+        return sSocketFactory;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+
+import javax.net.ssl.HttpsURLConnection;
+
+/**
+ * Checks whether an access token is still accepted by calling an
+ * authenticated endpoint with it.
+ * <br>
+ * <br>
+ * A 2xx answer means the token is valid and a 401 means it was revoked or
+ * has expired. Anything else says nothing about the token and is thrown, so
+ * a flaky network never marks a good token as bad. Connections share the
+ * token exchange's {@link javax.net.ssl.SSLSocketFactory}, so a check can
+ * reuse its TLS session.
+ * 
+ * @date 2026-10-17
+ */
+final class TokenValidationTransport {
+
+    static final String DEFAULT_ENDPOINT = "https://api.foursquare.com/v2/users/self?v=20200317";
+
+    private static final String PARAM_TOKEN = "oauth_token";
+
+    private TokenValidationTransport() {
+    }
+
+    /**
+     * @param endpoint a url the token is appended to as {@code oauth_token}.
+     * @return true if the token is valid, false if it was rejected.
+     * @throws IOException if the answer does not tell either way.
+     */
+    static boolean isValid(String endpoint, String token, int connectTimeoutMillis, int readTimeoutMillis)
+            throws IOException {
+        StringBuilder url = new StringBuilder(endpoint);
+        url.append(endpoint.indexOf('?') < 0 ? '?' : '&');
+        url.append(PARAM_TOKEN).append('=').append(URLEncoder.encode(token, "UTF-8"));
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url.toString()).openConnection();
+        try {
+            if (connection instanceof HttpsURLConnection) {
+                ((HttpsURLConnection) connection).setSSLSocketFactory(TokenExchangeTransport.getSocketFactory());
+            }
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(readTimeoutMillis);
+            connection.setUseCaches(false);
+            connection.setRequestProperty("Accept", "application/json");
+
+            int status = connection.getResponseCode();
+            drain(status >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getErrorStream()
+                    : connection.getInputStream());
+            if (status == HttpURLConnection.HTTP_UNAUTHORIZED) {
+                return false;
+            }
+            if (status >= 200 && status < 300) {
+                return true;
+            }
+            throw new HttpStatusException(status);
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * The body is not needed, but reading it to the end lets the connection
+     * go back to the pool.
+     */
+    private static void drain(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) != -1) {
+                // Discard.
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Wraps the transport's {@link SSLSocketFactory} to time TLS handshakes.
+ * <br>
+ * <br>
+ * The transport opens a {@link Trace} for the calling thread around each
+ * attempt. A socket created on that thread marks the start of the handshake
+ * and a {@link HandshakeCompletedListener} marks its end. No socket being
+ * created means a pooled connection was reused. Without a trace the factory
+ * only delegates.
+ * 
+ * @date 2026-10-17
+ */
+final class TracingSSLSocketFactory extends SSLSocketFactory {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private final SSLSocketFactory mDelegate;
+
+    TracingSSLSocketFactory(SSLSocketFactory delegate) {
+        mDelegate = delegate;
+    }
+
+    static Trace begin() {
+        Trace trace = new Trace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return mDelegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return mDelegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return trace(mDelegate.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+        return trace(mDelegate.createSocket(s, host, port, autoClose));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return trace(mDelegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return trace(mDelegate.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return trace(mDelegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+            throws IOException {
+        return trace(mDelegate.createSocket(address, port, localAddress, localPort));
+    }
+
+    private static Socket trace(Socket socket) {
+        Trace trace = CURRENT.get();
+        if (trace != null && socket instanceof SSLSocket) {
+            trace.mTlsStartNanos = System.nanoTime();
+            ((SSLSocket) socket).addHandshakeCompletedListener(trace);
+        }
+        return socket;
+    }
+
+    /**
+     * TLS timestamps of one attempt, 0 until seen. Android layers TLS over an
+     * already connected socket, so the start is the end of the TCP connect.
+     * Other platforms may create the socket before connecting it, which
+     * folds the connect into the handshake.
+     */
+    static final class Trace implements HandshakeCompletedListener {
+
+        volatile long mTlsStartNanos;
+        volatile long mTlsEndNanos;
+
+        @Override
+        public void handshakeCompleted(HandshakeCompletedEvent event) {
+            if (mTlsEndNanos == 0L) {
+                mTlsEndNanos = System.nanoTime();
+            }
+        }
+    }
+}
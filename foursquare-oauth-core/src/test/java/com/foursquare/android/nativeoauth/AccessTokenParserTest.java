@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Token endpoint responses, including the malformed ones the scanner must
+ * reject.
+ * 
+ * @date 2026-10-17
+ */
+public class AccessTokenParserTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void parsesAccessToken() throws IOException {
+        AccessTokenParser.Result result = parse("{\"access_token\":\"t0k3n\"}");
+        assertEquals("t0k3n", result.accessToken);
+        assertNull(result.errorCode);
+    }
+
+    @Test
+    public void parsesErrorCode() throws IOException {
+        AccessTokenParser.Result result = parse("{ \"error\" : \"invalid_grant\" }\n");
+        assertNull(result.accessToken);
+        assertEquals("invalid_grant", result.errorCode);
+    }
+
+    @Test
+    public void skipsNestedMeta() throws IOException {
+        AccessTokenParser.Result result = parse("{\"meta\":{\"code\":200,\"requestId\":\"5e70a1\","
+                + "\"flags\":[true,false,null,-1.5e3,{\"access_token\":\"nested\"}]},"
+                + "\"access_token\":\"t0k3n\"}");
+        assertEquals("t0k3n", result.accessToken);
+    }
+
+    @Test
+    public void decodesEscapes() throws IOException {
+        AccessTokenParser.Result result = parse("{\"access_token\":\"a\\\"b\\\\c\\/d\\u00e9\\ud83d\\ude00\"}");
+        assertEquals("a\"b\\c/d\u00e9\ud83d\ude00", result.accessToken);
+    }
+
+    @Test
+    public void rejectsTruncatedObject() throws IOException {
+        assertMalformed("{\"access_token\":\"t0k3n\"");
+        assertMalformed("{\"access_token\":\"t0k3n\",");
+        assertMalformed("{\"access_token\":\"t0k");
+        assertMalformed("{\"meta\":{\"code\":200},\"access_token\":\"t0k3n\"");
+    }
+
+    @Test
+    public void rejectsUnbalancedBrackets() throws IOException {
+        assertMalformed("{\"a\":[}, \"access_token\":\"t0k3n\"}");
+        assertMalformed("{\"a\":{]}, \"access_token\":\"t0k3n\"}");
+        assertMalformed("{\"access_token\":\"t0k3n\"}}");
+        assertMalformed("{\"a\":[1 2], \"access_token\":\"t0k3n\"}");
+    }
+
+    @Test
+    public void rejectsMissingToken() throws IOException {
+        assertMalformed("{}");
+        assertMalformed("{\"access_token\":\"\"}");
+        assertMalformed("<html>Bad Gateway</html>");
+    }
+
+    @Test
+    public void rejectsDeepNesting() throws IOException {
+        StringBuilder json = new StringBuilder("{\"a\":");
+        for (int i = 0; i < AccessTokenParser.MAX_DEPTH; i++) {
+            json.append('[');
+        }
+        for (int i = 0; i < AccessTokenParser.MAX_DEPTH; i++) {
+            json.append(']');
+        }
+        json.append(",\"access_token\":\"t0k3n\"}");
+        assertMalformed(json.toString());
+    }
+
+    private static AccessTokenParser.Result parse(String json) throws IOException {
+        return AccessTokenParser.parse(new ByteArrayInputStream(json.getBytes(UTF_8)));
+    }
+
+    private static void assertMalformed(String json) throws IOException {
+        try {
+            parse(json);
+            fail("Accepted " + json);
+        } catch (MalformedResponseException e) {
+            // expected
+        }
+    }
+}
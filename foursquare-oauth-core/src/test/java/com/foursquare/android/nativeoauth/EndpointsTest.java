@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Endpoint overrides, which must not send secrets over plain http off the
+ * device.
+ * 
+ * @date 2026-10-17
+ */
+public class EndpointsTest {
+
+    @Test
+    public void acceptsHttps() {
+        String endpoint = "https://staging.example.com/oauth2/access_token";
+        assertEquals(endpoint, Endpoints.requireSecure(endpoint));
+    }
+
+    @Test
+    public void acceptsHttpToLoopback() {
+        assertEquals("http://127.0.0.1:8080/t", Endpoints.requireSecure("http://127.0.0.1:8080/t"));
+        assertEquals("http://localhost/t", Endpoints.requireSecure("http://localhost/t"));
+        assertEquals("http://[::1]:8080/t", Endpoints.requireSecure("http://[::1]:8080/t"));
+    }
+
+    @Test
+    public void rejectsHttpToOtherHosts() {
+        assertRejected("http://foursquare.com/oauth2/access_token");
+        assertRejected("http://10.0.2.2:8080/t");
+        assertRejected("http://127.attacker.example/t");
+        assertRejected("ftp://127.0.0.1/t");
+        assertRejected("not a url");
+    }
+
+    private static void assertRejected(String endpoint) {
+        try {
+            Endpoints.requireSecure(endpoint);
+            fail("Accepted " + endpoint);
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
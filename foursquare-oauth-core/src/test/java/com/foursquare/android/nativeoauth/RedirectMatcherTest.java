@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The urls that end the web login, and the code, error and state read from
+ * them.
+ * 
+ * @date 2026-10-17
+ */
+public class RedirectMatcherTest {
+
+    @Test
+    public void matchesCallbackOnlyWhenTheAuthorityEnds() {
+        assertEquals(RedirectMatcher.CALLBACK, RedirectMatcher.match("foursquareauth://callback"));
+        assertEquals(RedirectMatcher.CALLBACK, RedirectMatcher.match("foursquareauth://callback/"));
+        assertEquals(RedirectMatcher.CALLBACK, RedirectMatcher.match("foursquareauth://callback?code=c"));
+        assertEquals(RedirectMatcher.CALLBACK, RedirectMatcher.match("foursquareauth://callback#code=c"));
+        assertEquals(RedirectMatcher.NO_MATCH, RedirectMatcher.match("foursquareauth://callbacks"));
+        assertEquals(RedirectMatcher.NO_MATCH, RedirectMatcher.match("foursquareauth://callback.example.com/"));
+        assertEquals(RedirectMatcher.NO_MATCH, RedirectMatcher.match(null));
+    }
+
+    @Test
+    public void matchesPrefixesIgnoringCase() {
+        assertEquals(RedirectMatcher.CALLBACK, RedirectMatcher.match("FoursquareAuth://CALLBACK?code=c"));
+        assertEquals(RedirectMatcher.DENIED,
+                RedirectMatcher.match("HTTPS://Foursquare.com/OAuth2/Authenticate?client_id=x&denied=1"));
+    }
+
+    @Test
+    public void matchesDeniedOnlyForExactlyOne() {
+        String authenticate = RedirectMatcher.AUTHENTICATE_PREFIX + "client_id=x&";
+        assertEquals(RedirectMatcher.DENIED, RedirectMatcher.match(authenticate + "denied=1"));
+        assertEquals(RedirectMatcher.DENIED, RedirectMatcher.match(authenticate + "denied=1&state=s"));
+        assertEquals(RedirectMatcher.NO_MATCH, RedirectMatcher.match(authenticate + "denied=10"));
+        assertEquals(RedirectMatcher.NO_MATCH, RedirectMatcher.match(authenticate + "denied=0"));
+        assertEquals(RedirectMatcher.NO_MATCH, RedirectMatcher.match(authenticate + "notdenied=1"));
+        assertEquals(RedirectMatcher.NO_MATCH, RedirectMatcher.match("https://foursquare.com/login?denied=1"));
+    }
+
+    @Test
+    public void readsParametersByFullName() {
+        String url = "foursquareauth://callback?codex=wrong&code=right&state=s";
+        assertEquals("right", RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_CODE));
+        assertEquals("s", RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_STATE));
+        assertNull(RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_ERROR));
+        assertNull(RedirectMatcher.getQueryParameter("foursquareauth://callback?codex=c", RedirectMatcher.PARAM_CODE));
+        assertEquals("first", RedirectMatcher.getQueryParameter(
+                "foursquareauth://callback?code=first&code=second", RedirectMatcher.PARAM_CODE));
+    }
+
+    @Test
+    public void decodesValues() {
+        String url = "foursquareauth://callback?error=access+denied&state=a%2Fb%3D%20c";
+        assertEquals("access denied", RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_ERROR));
+        assertEquals("a/b= c", RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_STATE));
+        assertEquals("caf\u00e9", RedirectMatcher.getQueryParameter(
+                "foursquareauth://callback?state=caf%C3%A9", RedirectMatcher.PARAM_STATE));
+    }
+
+    @Test
+    public void keepsMalformedEscapesAsSent() {
+        assertEquals("50%zz", RedirectMatcher.getQueryParameter(
+                "foursquareauth://callback?state=50%zz", RedirectMatcher.PARAM_STATE));
+        assertEquals("100%", RedirectMatcher.getQueryParameter(
+                "foursquareauth://callback?state=100%", RedirectMatcher.PARAM_STATE));
+    }
+
+    @Test
+    public void ignoresParametersInTheFragment() {
+        assertNull(RedirectMatcher.getQueryParameter(
+                "foursquareauth://callback?state=s#code=c", RedirectMatcher.PARAM_CODE));
+        assertNull(RedirectMatcher.getQueryParameter(
+                "foursquareauth://callback#code=c", RedirectMatcher.PARAM_CODE));
+        assertEquals("c", RedirectMatcher.getQueryParameter(
+                "foursquareauth://callback?code=c#state=s", RedirectMatcher.PARAM_CODE));
+        assertFalse(RedirectMatcher.hasQueryParameter(
+                RedirectMatcher.AUTHENTICATE_PREFIX + "client_id=x#denied=1", RedirectMatcher.PARAM_DENIED, "1"));
+    }
+
+    @Test
+    public void readsEmptyValues() {
+        String url = "foursquareauth://callback?code=&error&state=s";
+        assertEquals("", RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_CODE));
+        assertEquals("", RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_ERROR));
+        assertTrue(RedirectMatcher.hasQueryParameter(url, RedirectMatcher.PARAM_STATE, "s"));
+        assertFalse(RedirectMatcher.hasQueryParameter(url, RedirectMatcher.PARAM_CODE, "c"));
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import com.foursquare.android.nativeoauth.model.AccessTokenResponse;
+import com.foursquare.android.nativeoauth.model.AuthCodeResponse;
+
+import java.util.concurrent.Executor;
+
+/**
+ * One connect flow, from the connect intent to an auth code and optionally
+ * an access token. Obtain one from {@link FoursquareOAuth#newSession(String)}.
+ * <br>
+ * <br>
+ * Each session has a unique id that is sent as the OAuth {@code state} and
+ * returned with the result, so an app running several flows at once, for
+ * different client ids or accounts, can tell the results apart. A result
+ * carrying another session's state is rejected. Sessions are independent of
+ * each other: every session has its own lock, and their token exchanges run
+ * in parallel.
+ * 
+ * <pre>
+ * {@code
+ * AuthSession session = FoursquareOAuth.newSession(CLIENT_ID);
+ * startActivityForResult(session.getConnectIntent(context), REQUEST_CODE_FSQ_CONNECT);
+ * 
+ * // In onActivityResult()
+ * AuthCodeResponse codeResponse = session.getAuthCodeFromResult(resultCode, data);
+ * }
+ * </pre>
+ * 
+ * @date 2026-10-17
+ */
+public final class AuthSession {
+
+    public enum State {
+        /** Created, the connect intent has not been requested yet. */
+        CREATED,
+        /** Waiting for the user to connect. */
+        CONNECTING,
+        /** An auth code was received. */
+        AUTHORIZED,
+        /** The auth code is being exchanged for a token. */
+        EXCHANGING,
+        /** An access token was received. */
+        CONNECTED,
+        /** Connecting or exchanging failed, see {@link AuthSession#getException()}. */
+        FAILED,
+        /** The user cancelled, or the session was closed before it completed. */
+        CANCELLED
+    }
+
+    private final String mId;
+    private final String mClientId;
+    private final long mCreatedAt;
+
+    private final Object mLock = new Object();
+
+    // Guarded by mLock.
+    private State mState = State.CREATED;
+    private String mAuthCode;
+    private String mRedirectUri;
+    private String mAccessToken;
+    private Exception mException;
+    private TokenExchangeCallback mExchangeListener;
+
+    AuthSession(String id, String clientId, long createdAt) {
+        mId = id;
+        mClientId = clientId;
+        mCreatedAt = createdAt;
+    }
+
+    /**
+     * The session's correlation id, also sent as the OAuth {@code state}.
+     */
+    public String getId() {
+        return mId;
+    }
+
+    public String getClientId() {
+        return mClientId;
+    }
+
+    long getCreatedAt() {
+        return mCreatedAt;
+    }
+
+    public State getState() {
+        synchronized (mLock) {
+            return mState;
+        }
+    }
+
+    /** The auth code, once the session is {@link State#AUTHORIZED} or later. */
+    public String getAuthCode() {
+        synchronized (mLock) {
+            return mAuthCode;
+        }
+    }
+
+    /** The access token, once the session is {@link State#CONNECTED}. */
+    public String getAccessToken() {
+        synchronized (mLock) {
+            return mAccessToken;
+        }
+    }
+
+    /** Why the session failed or was cancelled, or null. */
+    public Exception getException() {
+        synchronized (mLock) {
+            return mException;
+        }
+    }
+
+    /**
+     * Like {@link FoursquareOAuth#getConnectIntent(Context, String)}, for this
+     * session's client id and state.
+     */
+    public Intent getConnectIntent(Context context) {
+        Intent intent = FoursquareOAuth.getConnectIntent(context, mClientId, mId);
+        moveTo(State.CONNECTING);
+        return intent;
+    }
+
+    /**
+     * Like {@link FoursquareOAuth#getConnectIntentAsync(Context, String, Executor, ConnectIntentCallback)},
+     * for this session's client id and state.
+     */
+    public void getConnectIntentAsync(Context context, Executor executor, final ConnectIntentCallback callback) {
+        moveTo(State.CONNECTING);
+        new ConnectIntentLoader(context.getApplicationContext(), mClientId, mId, new ConnectIntentCallback() {
+            @Override
+            public void onConnectIntent(Intent intent) {
+                callback.onConnectIntent(intent);
+            }
+
+            @Override
+            public void onConnectIntentError(Exception e) {
+                synchronized (mLock) {
+                    if (mState == State.CONNECTING) {
+                        mException = e;
+                        mState = State.FAILED;
+                    }
+                }
+                callback.onConnectIntentError(e);
+            }
+        }).start(executor);
+    }
+
+    /**
+     * Like {@link FoursquareOAuth#getAuthCodeFromResult(int, Intent)}, and
+     * records the outcome in this session. A result that carries a different
+     * state belongs to another flow, and so does a web login result without
+     * one. It is returned as a {@link FoursquareInvalidRequestException} and
+     * leaves this session unchanged. Only the Foursquare app's result may
+     * come back without a state.
+     */
+    public AuthCodeResponse getAuthCodeFromResult(int resultCode, Intent data) {
+        AuthCodeResponse response = FoursquareOAuth.getAuthCodeFromResult(resultCode, data);
+        String state = response.getState();
+        boolean web = data != null && data.getBooleanExtra(FoursquareOAuth.INTENT_RESULT_WEB, false);
+        if ((state != null || web) && !mId.equals(state)) {
+            AuthCodeResponse mismatch = new AuthCodeResponse();
+            mismatch.setState(state);
+            mismatch.setException(new FoursquareInvalidRequestException(state != null
+                    ? "Result belongs to session " + state
+                    : "Web login result has no state"));
+            return mismatch;
+        }
+
+        synchronized (mLock) {
+            if (response.getException() == null) {
+                mAuthCode = response.getCode();
+                mRedirectUri = response.getRedirectUri();
+                mState = State.AUTHORIZED;
+            } else {
+                mException = response.getException();
+                mState = resultCode == Activity.RESULT_CANCELED ? State.CANCELLED : State.FAILED;
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Like {@link FoursquareOAuth#exchangeToken(String, String, String, TokenExchangeCallback)},
+     * for the auth code received by this session. The result is also
+     * recorded in this session before the callback is called.
+     * 
+     * @throws IllegalStateException if the session has no auth code yet.
+     */
+    public void exchangeToken(String clientSecret, final TokenExchangeCallback callback) {
+        TokenExchangeCallback listener = new TokenExchangeCallback() {
+            @Override
+            public void onTokenExchangeComplete(AccessTokenResponse response) {
+                synchronized (mLock) {
+                    mExchangeListener = null;
+                    if (response.getException() == null) {
+                        mAccessToken = response.getAccessToken();
+                        mState = State.CONNECTED;
+                    } else {
+                        mException = response.getException();
+                        mState = State.FAILED;
+                    }
+                }
+                if (callback != null) {
+                    callback.onTokenExchangeComplete(response);
+                }
+            }
+        };
+
+        String authCode;
+        String redirectUri;
+        synchronized (mLock) {
+            if (mAuthCode == null) {
+                throw new IllegalStateException("Session " + mId + " has no auth code");
+            }
+            authCode = mAuthCode;
+            redirectUri = mRedirectUri;
+            mExchangeListener = listener;
+            mState = State.EXCHANGING;
+        }
+        TokenExchangeRegistry.attach(mClientId, clientSecret, authCode, redirectUri, listener);
+    }
+
+    /**
+     * Ends the session. A running token exchange is cancelled unless another
+     * caller is waiting on it, and the session can no longer be found with
+     * {@link FoursquareOAuth#getSession(String)}.
+     */
+    public void close() {
+        TokenExchangeCallback listener;
+        String authCode;
+        synchronized (mLock) {
+            listener = mExchangeListener;
+            authCode = mAuthCode;
+            mExchangeListener = null;
+            if (mState == State.CREATED || mState == State.CONNECTING || mState == State.EXCHANGING) {
+                mState = State.CANCELLED;
+            }
+        }
+        if (listener != null) {
+            TokenExchangeRegistry.detach(authCode, listener, true);
+        }
+        AuthSessions.remove(this);
+    }
+
+    private void moveTo(State state) {
+        synchronized (mLock) {
+            mState = state;
+        }
+    }
+}
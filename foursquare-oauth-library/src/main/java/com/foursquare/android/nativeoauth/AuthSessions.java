@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.os.SystemClock;
+
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Open {@link AuthSession}s by id.
+ * <br>
+ * <br>
+ * The map is concurrent and each session guards its own state, so flows for
+ * different sessions never wait on a shared lock. Sessions are removed when
+ * closed, or after {@link #SESSION_TTL_MILLIS} if the app never closes them.
+ * 
+ * @date 2026-10-17
+ */
+final class AuthSessions {
+
+    static final long SESSION_TTL_MILLIS = 30 * 60 * 1000;
+
+    private static final ConcurrentMap<String, AuthSession> SESSIONS = new ConcurrentHashMap<>();
+
+    private AuthSessions() {
+    }
+
+    static AuthSession create(String clientId) {
+        pruneExpired();
+
+        // Random UUIDs come from SecureRandom, so ids are unguessable and
+        // also serve as the OAuth state that protects against forged results.
+        AuthSession session;
+        do {
+            session = new AuthSession(UUID.randomUUID().toString(), clientId, SystemClock.elapsedRealtime());
+        } while (SESSIONS.putIfAbsent(session.getId(), session) != null);
+        return session;
+    }
+
+    static AuthSession get(String sessionId) {
+        return sessionId != null ? SESSIONS.get(sessionId) : null;
+    }
+
+    static void remove(AuthSession session) {
+        SESSIONS.remove(session.getId(), session);
+    }
+
+    private static void pruneExpired() {
+        long now = SystemClock.elapsedRealtime();
+        for (Iterator<AuthSession> it = SESSIONS.values().iterator(); it.hasNext();) {
+            if (now - it.next().getCreatedAt() > SESSION_TTL_MILLIS) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.content.Intent;
+
+/**
+ * Receives the intent built by
+ * {@link FoursquareOAuth#getConnectIntentAsync(android.content.Context, String, java.util.concurrent.Executor, ConnectIntentCallback)}.
+ * 
+ * @date 2026-10-17
+ */
+public interface ConnectIntentCallback {
+
+    /**
+     * Called on the main thread with an intent that can be passed straight
+     * to startActivityForResult().
+     */
+    void onConnectIntent(Intent intent);
+
+    /**
+     * Called on the main thread instead of {@link #onConnectIntent(Intent)}
+     * when the intent could not be built, because looking up the app's
+     * signature or the Foursquare app failed.
+     */
+    void onConnectIntentError(Exception e);
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the connect intent off the main thread. The signature lookup and the
+ * Foursquare app lookup are submitted as two tasks, and whichever finishes
+ * last assembles the intent and posts it to the main thread. If either
+ * lookup throws, the executor rejects a task, or assembling the intent
+ * throws, the first exception is posted instead of an intent.
+ * 
+ * @date 2026-10-17
+ */
+final class ConnectIntentLoader {
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final Context mContext;
+    private final String mClientId;
+    private final String mState;
+    private final ConnectIntentCallback mCallback;
+    private final AtomicInteger mPending = new AtomicInteger(2);
+
+    private volatile String mSignature;
+    private volatile boolean mNativeAvailable;
+    private volatile RuntimeException mError;
+
+    ConnectIntentLoader(Context context, String clientId, String state, ConnectIntentCallback callback) {
+        mContext = context;
+        mClientId = clientId;
+        mState = state;
+        mCallback = callback;
+    }
+
+    void start(Executor executor) {
+        execute(executor, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mSignature = FoursquareOAuth.getSignatureFingerprint(mContext);
+                } catch (RuntimeException e) {
+                    onTaskFailed(e);
+                } finally {
+                    onTaskComplete();
+                }
+            }
+        });
+        execute(executor, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Intent probe = FoursquareOAuth.createNativeConnectIntent(FoursquareOAuth.getConnectProbeUri());
+                    mNativeAvailable = FoursquareOAuth.isIntentAvailable(mContext, probe);
+                } catch (RuntimeException e) {
+                    onTaskFailed(e);
+                } finally {
+                    onTaskComplete();
+                }
+            }
+        });
+    }
+
+    private void execute(Executor executor, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            onTaskFailed(e);
+            onTaskComplete();
+        }
+    }
+
+    /**
+     * PackageManager lookups can throw, for example a SecurityException or
+     * a DeadObjectException wrapped in a RuntimeException.
+     */
+    private synchronized void onTaskFailed(RuntimeException e) {
+        if (mError == null) {
+            mError = e;
+        }
+    }
+
+    private void onTaskComplete() {
+        if (mPending.decrementAndGet() != 0) {
+            return;
+        }
+
+        RuntimeException error = mError;
+        Intent intent = null;
+        if (error == null) {
+            try {
+                Uri connectUri = FoursquareOAuth.buildConnectUri(mClientId, mSignature, mState);
+                intent = FoursquareOAuth.createConnectIntent(mContext, connectUri, mNativeAvailable);
+            } catch (RuntimeException e) {
+                // Building the intent touches preferences, the Custom Tabs
+                // service and PackageManager too.
+                error = e;
+            }
+        }
+
+        if (error != null) {
+            final RuntimeException postedError = error;
+            MAIN_HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    mCallback.onConnectIntentError(postedError);
+                }
+            });
+            return;
+        }
+
+        final Intent postedIntent = intent;
+        MAIN_HANDLER.post(new Runnable() {
+            @Override
+            public void run() {
+                mCallback.onConnectIntent(postedIntent);
+            }
+        });
+    }
+}
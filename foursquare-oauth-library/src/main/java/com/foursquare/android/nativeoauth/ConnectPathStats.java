@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+/**
+ * A snapshot of how connect flows went on this device for each path, kept
+ * across launches. Durations run from building the connect intent to
+ * reading its result, and only logins that returned an auth code count
+ * towards them. Logins the user denied are left out entirely.
+ *
+ * @date 2026-10-17
+ */
+public final class ConnectPathStats {
+
+    public enum Path {
+        /** The Foursquare app. */
+        NATIVE,
+        /** The web login, in a WebView or a Custom Tab. */
+        WEB
+    }
+
+    /** Logins a path needs before its numbers are trusted. */
+    static final int MIN_SAMPLES = 3;
+
+    /**
+     * A native login slower than this is worth comparing with the web path,
+     * even before the web path has samples of its own.
+     */
+    static final long SLOW_NATIVE_MILLIS = 5000;
+
+    /** The web path has to be this much faster to win, so near ties keep the app. */
+    private static final double WEB_MARGIN = 0.8;
+
+    private final int[] mSampleCounts;
+    private final long[] mAverageMillis;
+    private final double[] mSuccessRates;
+
+    ConnectPathStats(int[] sampleCounts, long[] averageMillis, double[] successRates) {
+        mSampleCounts = sampleCounts;
+        mAverageMillis = averageMillis;
+        mSuccessRates = successRates;
+    }
+
+    /** Finished logins recorded for the path, successful or not. */
+    public int getSampleCount(Path path) {
+        return mSampleCounts[path.ordinal()];
+    }
+
+    /**
+     * The rolling average duration of the path's successful logins, or -1
+     * if it has none yet.
+     */
+    public long getAverageMillis(Path path) {
+        return mAverageMillis[path.ordinal()];
+    }
+
+    /**
+     * The rolling share of the path's logins that returned an auth code, or
+     * 0 if it has no samples yet.
+     */
+    public double getSuccessRate(Path path) {
+        return mSuccessRates[path.ordinal()];
+    }
+
+    /**
+     * The path {@link FoursquareOAuth#setLatencyAwareConnectPath(boolean)}
+     * picks when the Foursquare app is installed. That is the app, unless
+     * both paths have enough samples and the web's expected time to a
+     * successful login, its average duration divided by its success rate,
+     * is clearly lower. While the app is slow and the web path has too few
+     * samples to compare, the web path is picked to collect them. While the
+     * web path is picked, a tenth of the logins still go through the app so
+     * its stats stay current.
+     */
+    public Path getPreferredPath() {
+        if (getSampleCount(Path.NATIVE) < MIN_SAMPLES) {
+            return Path.NATIVE;
+        }
+        double nativeMillis = expectedMillis(Path.NATIVE);
+        if (getSampleCount(Path.WEB) < MIN_SAMPLES) {
+            return nativeMillis > SLOW_NATIVE_MILLIS ? Path.WEB : Path.NATIVE;
+        }
+        return expectedMillis(Path.WEB) < nativeMillis * WEB_MARGIN ? Path.WEB : Path.NATIVE;
+    }
+
+    private double expectedMillis(Path path) {
+        long average = getAverageMillis(path);
+        double successRate = getSuccessRate(path);
+        if (average < 0 || successRate <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return average / successRate;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectPathStats{native=" + describe(Path.NATIVE) + ", web=" + describe(Path.WEB)
+                + ", preferred=" + getPreferredPath() + "}";
+    }
+
+    private String describe(Path path) {
+        return "[samples=" + getSampleCount(path) + ", averageMillis=" + getAverageMillis(path)
+                + ", successRate=" + getSuccessRate(path) + "]";
+    }
+}
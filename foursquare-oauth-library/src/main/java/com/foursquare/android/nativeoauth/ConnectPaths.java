@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+
+import com.foursquare.android.nativeoauth.ConnectPathStats.Path;
+import com.foursquare.android.nativeoauth.model.AuthCodeResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each connect flow takes and whether it returns an auth
+ * code, per path, and picks the path for the next flow when the latency
+ * aware policy is on.
+ * <br>
+ * <br>
+ * A flow starts when its connect intent is built and ends when its result
+ * is read with {@link FoursquareOAuth#getAuthCodeFromResult(int, android.content.Intent)}.
+ * Results are matched to flows by their state, or to the last flow without
+ * one. Flows in progress are kept in memory and written behind to
+ * {@link SharedPreferences}, along with the exponentially weighted rolling
+ * averages, so a flow still ends when the app's process was killed while
+ * the user was in the Foursquare app. Flows are timed with the wall clock
+ * for the same reason. The preferences are only read and written on the
+ * token exchange pool, so starting and ending a flow never touches the
+ * disk on the caller's thread. A result read before anything in the new
+ * process passed a context in is recorded once one does.
+ * <br>
+ * <br>
+ * While the policy picks the web login, a share of flows still goes
+ * through the Foursquare app, so its stats keep up with the app getting
+ * faster.
+ *
+ * @date 2026-10-17
+ */
+final class ConnectPaths {
+
+    private static final String PREFS_NAME = "com.foursquare.android.nativeoauth.connectpaths";
+    private static final String KEY_SAMPLES = ".samples";
+    private static final String KEY_COMPLETED = ".completed";
+    private static final String KEY_MILLIS = ".millis";
+    private static final String KEY_SUCCESS_RATE = ".successRate";
+    private static final String KEY_FLOW = "flow.";
+
+    /** Weight of the newest login in the rolling averages. */
+    private static final float ALPHA = 0.25f;
+
+    /** Flows whose result is read later than this were abandoned and are not recorded. */
+    private static final long MAX_FLOW_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /** Share of flows sent through the Foursquare app while the web login is preferred. */
+    private static final double EXPLORE_RATE = 0.1;
+
+    private static final String NO_STATE = "";
+
+    private static final Random RANDOM = new Random();
+
+    private static volatile boolean sLatencyAware;
+
+    // Guarded by ConnectPaths.class.
+    private static Context sAppContext;
+    private static final Map<String, Flow> FLOWS = new HashMap<>();
+    // Set once the flows stored by an earlier process were merged in.
+    private static boolean sFlowsLoaded;
+    // Results read before a context was available.
+    private static final List<Ended> ENDED = new ArrayList<>();
+
+    private ConnectPaths() {
+    }
+
+    static void setLatencyAware(boolean latencyAware) {
+        sLatencyAware = latencyAware;
+    }
+
+    /**
+     * @return true if the policy is on and picks the web login even though
+     *          the Foursquare app is installed.
+     */
+    static boolean preferWeb(Context context) {
+        return sLatencyAware && getStats(context).getPreferredPath() == Path.WEB;
+    }
+
+    /**
+     * Like {@link #preferWeb(Context)}, but sends a share of the flows
+     * through the Foursquare app anyway, so it keeps getting samples. Used
+     * for the flow that is about to start.
+     */
+    static boolean pickWeb(Context context) {
+        if (!preferWeb(context)) {
+            return false;
+        }
+        synchronized (RANDOM) {
+            return RANDOM.nextDouble() >= EXPLORE_RATE;
+        }
+    }
+
+    /**
+     * Starts timing a flow on the path. The state is read from the connect
+     * uri the flow was built with.
+     */
+    static void start(Context context, Path path, Uri connectUri) {
+        String state = connectUri != null ? connectUri.getQueryParameter(ConnectUris.PARAM_STATE) : null;
+        final String key = state != null ? state : NO_STATE;
+        final Flow flow = new Flow(path, System.currentTimeMillis());
+        synchronized (ConnectPaths.class) {
+            attach(context);
+            for (Iterator<Flow> it = FLOWS.values().iterator(); it.hasNext();) {
+                if (!it.next().isRunning(flow.mStartMillis)) {
+                    it.remove();
+                }
+            }
+            FLOWS.put(key, flow);
+        }
+
+        TokenExchangeExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ConnectPaths.class) {
+                    SharedPreferences prefs = loadFlows();
+                    // The flow may have ended before this ran.
+                    if (FLOWS.get(key) == flow) {
+                        prefs.edit().putString(KEY_FLOW + key, flow.toString()).apply();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Ends the flow the result belongs to and records it. The Foursquare app
+     * does not return the state, so a result without one ends the only flow
+     * in progress.
+     */
+    static void finish(AuthCodeResponse response) {
+        // Denying access is the user's choice and says nothing about the path,
+        // but the flow is still over.
+        Exception exception = response.getException();
+        final Ended ended = new Ended(response.getState(), exception == null,
+                exception instanceof FoursquareDenyException, System.currentTimeMillis());
+        synchronized (ConnectPaths.class) {
+            if (sAppContext == null) {
+                ENDED.add(ended);
+                return;
+            }
+        }
+        TokenExchangeExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                end(ended);
+            }
+        });
+    }
+
+    /**
+     * Remembers the application context, and records the results that were
+     * read before it was known.
+     */
+    private static void attach(Context context) {
+        synchronized (ConnectPaths.class) {
+            if (sAppContext != null) {
+                return;
+            }
+            sAppContext = context.getApplicationContext();
+            if (ENDED.isEmpty()) {
+                return;
+            }
+        }
+        TokenExchangeExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                List<Ended> ended;
+                synchronized (ConnectPaths.class) {
+                    ended = new ArrayList<>(ENDED);
+                    ENDED.clear();
+                }
+                for (Ended result : ended) {
+                    end(result);
+                }
+            }
+        });
+    }
+
+    /**
+     * Merges the flows an earlier process left in the preferences into the
+     * running ones, and drops the stale ones. Must hold the class lock and
+     * must not run on the main thread.
+     */
+    private static SharedPreferences loadFlows() {
+        SharedPreferences prefs = sAppContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (sFlowsLoaded) {
+            return prefs;
+        }
+        sFlowsLoaded = true;
+
+        long now = System.currentTimeMillis();
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(KEY_FLOW)) {
+                continue;
+            }
+            Flow flow = Flow.parse(entry.getValue());
+            String state = key.substring(KEY_FLOW.length());
+            if (flow == null || !flow.isRunning(now)) {
+                editor.remove(key);
+            } else if (!FLOWS.containsKey(state)) {
+                FLOWS.put(state, flow);
+            }
+        }
+        editor.apply();
+        return prefs;
+    }
+
+    /**
+     * Runs on the token exchange pool.
+     */
+    private static void end(Ended ended) {
+        synchronized (ConnectPaths.class) {
+            SharedPreferences prefs = loadFlows();
+            String key = ended.mState != null ? ended.mState : NO_STATE;
+            Flow flow = FLOWS.remove(key);
+            if (flow == null && ended.mState == null && FLOWS.size() == 1) {
+                key = FLOWS.keySet().iterator().next();
+                flow = FLOWS.remove(key);
+            }
+            if (flow == null) {
+                return;
+            }
+            prefs.edit().remove(KEY_FLOW + key).apply();
+
+            if (ended.mDenied || !flow.isRunning(ended.mEndMillis)) {
+                return;
+            }
+            record(prefs, flow.mPath, ended.mSuccess, ended.mEndMillis - flow.mStartMillis);
+        }
+    }
+
+    private static void record(SharedPreferences prefs, Path path, boolean success, long millis) {
+        String name = path.name();
+        int samples = prefs.getInt(name + KEY_SAMPLES, 0);
+        int completed = prefs.getInt(name + KEY_COMPLETED, 0);
+        float successRate = prefs.getFloat(name + KEY_SUCCESS_RATE, 0f);
+        float averageMillis = prefs.getFloat(name + KEY_MILLIS, 0f);
+
+        float outcome = success ? 1f : 0f;
+        successRate = samples == 0 ? outcome : successRate + ALPHA * (outcome - successRate);
+        if (success) {
+            averageMillis = completed == 0 ? millis : averageMillis + ALPHA * (millis - averageMillis);
+            completed++;
+        }
+
+        prefs.edit()
+                .putInt(name + KEY_SAMPLES, samples + 1)
+                .putInt(name + KEY_COMPLETED, completed)
+                .putFloat(name + KEY_SUCCESS_RATE, successRate)
+                .putFloat(name + KEY_MILLIS, averageMillis)
+                .apply();
+    }
+
+    static ConnectPathStats getStats(Context context) {
+        attach(context);
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        Path[] paths = Path.values();
+        int[] sampleCounts = new int[paths.length];
+        long[] averageMillis = new long[paths.length];
+        double[] successRates = new double[paths.length];
+        for (Path path : paths) {
+            String name = path.name();
+            int i = path.ordinal();
+            sampleCounts[i] = prefs.getInt(name + KEY_SAMPLES, 0);
+            averageMillis[i] = prefs.getInt(name + KEY_COMPLETED, 0) > 0
+                    ? Math.round(prefs.getFloat(name + KEY_MILLIS, 0f))
+                    : -1L;
+            successRates[i] = prefs.getFloat(name + KEY_SUCCESS_RATE, 0f);
+        }
+        return new ConnectPathStats(sampleCounts, averageMillis, successRates);
+    }
+
+    private static final class Flow {
+        final Path mPath;
+        final long mStartMillis;
+
+        Flow(Path path, long startMillis) {
+            mPath = path;
+            mStartMillis = startMillis;
+        }
+
+        /**
+         * @return false if the flow was abandoned, or the clock was set back.
+         */
+        boolean isRunning(long now) {
+            return now >= mStartMillis && now - mStartMillis <= MAX_FLOW_MILLIS;
+        }
+
+        /**
+         * @return the flow as PATH:START, the way it is stored.
+         */
+        @Override
+        public String toString() {
+            return mPath.name() + ":" + mStartMillis;
+        }
+
+        /**
+         * @return the flow stored as PATH:START, or null if the value is not one.
+         */
+        static Flow parse(Object value) {
+            if (!(value instanceof String)) {
+                return null;
+            }
+            String flow = (String) value;
+            int colon = flow.indexOf(':');
+            try {
+                return new Flow(Path.valueOf(flow.substring(0, Math.max(colon, 0))),
+                        Long.parseLong(flow.substring(colon + 1)));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Ended {
+        final String mState;
+        final boolean mSuccess;
+        final boolean mDenied;
+        final long mEndMillis;
+
+        Ended(String state, boolean success, boolean denied, long endMillis) {
+            mState = state;
+            mSuccess = success;
+            mDenied = denied;
+            mEndMillis = endMillis;
+        }
+    }
+}
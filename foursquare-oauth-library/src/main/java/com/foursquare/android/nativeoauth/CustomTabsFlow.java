@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.support.customtabs.CustomTabsClient;
+import android.support.customtabs.CustomTabsServiceConnection;
+import android.support.customtabs.CustomTabsSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs the web login in a browser Custom Tab instead of an embedded
+ * WebView, when the app has set a redirect uri and a browser supports
+ * Custom Tabs.
+ * <br>
+ * <br>
+ * The browser's Custom Tabs service is bound ahead of time by
+ * {@link #warmUp(Context)}, which also asks the browser to warm up. Once a
+ * connect intent is built, {@link #mayLaunchUrl(Context, Uri)} tells the
+ * browser the exact authenticate url so it can start loading it. The
+ * service stays bound until {@link #release(Context)}.
+ *
+ * @date 2026-10-17
+ */
+final class CustomTabsFlow {
+
+    static final String AUTHENTICATE_URL = "https://foursquare.com/oauth2/authenticate";
+
+    private static final String PARAM_STATE = ConnectUris.PARAM_STATE;
+
+    private static final int MAX_REMEMBERED_CODES = 4;
+
+    private static volatile String sRedirectUri;
+
+    private static boolean sPackageResolved;
+    private static String sPackageName;
+
+    private static CustomTabsServiceConnection sConnection;
+    private static CustomTabsSession sSession;
+    private static Uri sPendingUrl;
+
+    // Redirect uris of recent codes received through a Custom Tab, by code.
+    private static final Map<String, String> sCodeRedirectUris =
+            new LinkedHashMap<String, String>(MAX_REMEMBERED_CODES, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_REMEMBERED_CODES;
+                }
+            };
+
+    private CustomTabsFlow() {
+    }
+
+    static void setRedirectUri(String redirectUri) {
+        sRedirectUri = redirectUri;
+    }
+
+    /**
+     * Remembers the redirect uri a code was requested with, since the token
+     * endpoint only accepts the code together with the same redirect uri.
+     */
+    static synchronized void rememberCode(String code, String redirectUri) {
+        sCodeRedirectUris.put(code, redirectUri);
+    }
+
+    /**
+     * @return the redirect uri the code was requested with, or null if it
+     *          did not come from a Custom Tab in this process.
+     */
+    static synchronized String getRedirectUri(String code) {
+        return code != null ? sCodeRedirectUris.get(code) : null;
+    }
+
+    /**
+     * @return true if a redirect uri is set and a browser can show the login
+     *          in a Custom Tab.
+     */
+    static boolean isEnabled(Context context) {
+        return sRedirectUri != null && getPackageName(context) != null;
+    }
+
+    /**
+     * Returns the browser to use, preferring the default browser. Looked up
+     * once per process, the activity falls back to the WebView if the
+     * browser is gone by the time it is launched.
+     */
+    static synchronized String getPackageName(Context context) {
+        if (!sPackageResolved) {
+            sPackageName = CustomTabsClient.getPackageName(context.getApplicationContext(), null);
+            sPackageResolved = true;
+        }
+        return sPackageName;
+    }
+
+    /**
+     * Returns an intent for {@link FoursquareOAuthCustomTabsActivity}, or
+     * null if Custom Tabs are not enabled. A state is added to the connect
+     * uri if it has none, since the redirect can be sent by any app and is
+     * only trusted when it carries the state back.
+     */
+    static Intent createConnectIntent(Context context, Uri connectUri) {
+        String redirectUri = sRedirectUri;
+        if (redirectUri == null || getPackageName(context) == null) {
+            return null;
+        }
+
+        String state = connectUri.getQueryParameter(PARAM_STATE);
+        if (state == null) {
+            state = UUID.randomUUID().toString();
+            connectUri = connectUri.buildUpon().appendQueryParameter(PARAM_STATE, state).build();
+        }
+        String clientId = connectUri.getQueryParameter(ConnectUris.PARAM_CLIENT_ID);
+        mayLaunchUrl(context, buildAuthenticateUri(clientId, redirectUri, state));
+
+        Intent intent = new Intent(context, FoursquareOAuthCustomTabsActivity.class);
+        intent.setData(connectUri);
+        intent.putExtra(FoursquareOAuthCustomTabsActivity.EXTRA_REDIRECT_URI, redirectUri);
+        return intent;
+    }
+
+    static Uri buildAuthenticateUri(String clientId, String redirectUri, String state) {
+        StringBuilder url = new StringBuilder(192);
+        url.append(AUTHENTICATE_URL);
+        url.append("?client_id=");
+        ConnectUris.encode(clientId, url);
+        url.append("&response_type=code&redirect_uri=");
+        ConnectUris.encode(redirectUri, url);
+        url.append('&').append(PARAM_STATE).append('=');
+        ConnectUris.encode(state, url);
+        return Uri.parse(url.toString());
+    }
+
+    /**
+     * Binds the browser's Custom Tabs service if it is not bound yet. Can be
+     * called from any thread.
+     */
+    static synchronized void warmUp(Context context) {
+        if (sConnection != null) {
+            return;
+        }
+        String packageName = getPackageName(context);
+        if (packageName == null) {
+            return;
+        }
+
+        CustomTabsServiceConnection connection = new CustomTabsServiceConnection() {
+            @Override
+            public void onCustomTabsServiceConnected(ComponentName name, CustomTabsClient client) {
+                onConnected(this, client);
+            }
+
+            @Override
+            public void onServiceDisconnected(ComponentName name) {
+                onDisconnected(this);
+            }
+        };
+        if (CustomTabsClient.bindCustomTabsService(context.getApplicationContext(), packageName, connection)) {
+            sConnection = connection;
+        }
+    }
+
+    /**
+     * Hints the browser that the url is about to be opened, binding the
+     * service first if needed. Can be called from any thread.
+     */
+    static synchronized void mayLaunchUrl(Context context, Uri url) {
+        sPendingUrl = url;
+        if (sSession != null) {
+            sSession.mayLaunchUrl(url, null, null);
+        } else {
+            warmUp(context);
+        }
+    }
+
+    /**
+     * @return the session the launch url was hinted on, or null if the
+     *          service is not connected.
+     */
+    static synchronized CustomTabsSession getSession() {
+        return sSession;
+    }
+
+    static synchronized void release(Context context) {
+        if (sConnection != null) {
+            context.getApplicationContext().unbindService(sConnection);
+            sConnection = null;
+        }
+        sSession = null;
+        sPendingUrl = null;
+    }
+
+    private static synchronized void onConnected(CustomTabsServiceConnection connection, CustomTabsClient client) {
+        if (connection != sConnection) {
+            return;
+        }
+        client.warmup(0L);
+        sSession = client.newSession(null);
+        if (sSession != null && sPendingUrl != null) {
+            sSession.mayLaunchUrl(sPendingUrl, null, null);
+        }
+    }
+
+    /**
+     * The browser process died. The binding is kept, so the service is
+     * connected again once the browser restarts.
+     */
+    private static synchronized void onDisconnected(CustomTabsServiceConnection connection) {
+        if (connection == sConnection) {
+            sSession = null;
+        }
+    }
+}
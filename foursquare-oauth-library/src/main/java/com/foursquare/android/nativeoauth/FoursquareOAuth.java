@@ -18,20 +18,12 @@ package com.foursquare.android.nativeoauth;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.PackageInfo;
-import android.content.pm.PackageManager;
-import android.content.pm.PackageManager.NameNotFoundException;
-import android.content.pm.ResolveInfo;
-import android.content.pm.Signature;
 import android.net.Uri;
-import android.text.TextUtils;
 
 import com.foursquare.android.nativeoauth.model.AccessTokenResponse;
 import com.foursquare.android.nativeoauth.model.AuthCodeResponse;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Main implementation of Foursquare authentication.
@@ -40,7 +32,7 @@ import java.util.List;
  */
 public final class FoursquareOAuth {
 
-    private static final String PACKAGE = "com.joelapenna.foursquared";
+    private static final String PACKAGE = NativeAppResolver.FOURSQUARE_PACKAGE;
     
     protected static final String INTENT_RESULT_CODE = PACKAGE
             + ".fragments.OauthWebviewFragment.INTENT_RESULT_CODE";
@@ -54,19 +46,17 @@ public final class FoursquareOAuth {
     protected static final String INTENT_RESULT_ERROR_MESSAGE = PACKAGE
             + ".fragments.OauthWebviewFragment.INTENT_RESULT_ERROR_MESSAGE";
 
-    private static final String URI_SCHEME = "foursquareauth";
-    private static final String URI_AUTHORITY = "authorize";
-    private static final String PARAM_CLIENT_ID = "client_id";
-    private static final String PARAM_SIGNATURE = "androidKeyHash";
-    private static final String PARAM_VERSION = "v";
+    protected static final String INTENT_RESULT_STATE = PACKAGE
+            + ".fragments.OauthWebviewFragment.INTENT_RESULT_STATE";
+
+    /** Set by the library's own web login activities, never by the Foursquare app. */
+    static final String INTENT_RESULT_WEB = "com.foursquare.android.nativeoauth.INTENT_RESULT_WEB";
+
+    static final String INTENT_RESULT_REDIRECT_URI = "com.foursquare.android.nativeoauth.INTENT_RESULT_REDIRECT_URI";
     
     private static final String URI_MARKET_PAGE = "market://details?id=com.joelapenna.foursquared"; 
     private static final String MARKET_REFERRER = "utm_source=foursquare-android-oauth&utm_term=%s";
     
-    private static final String ERROR_CODE_UNSUPPORTED_VERSION = "unsupported_version";
-    private static final String ERROR_CODE_INVALID_REQUEST = "invalid_request";
-    private static final String ERROR_CODE_INTERNAL_ERROR = "internal_error";
-    
     private static final int LIB_VERSION = 20130509;
 
     /**
@@ -79,22 +69,102 @@ public final class FoursquareOAuth {
      * @param clientId
      */
     public static Intent getConnectIntent(Context context, String clientId) {
-        Uri.Builder builder = new Uri.Builder();
-        builder.scheme(URI_SCHEME);
-        builder.authority(URI_AUTHORITY);
-        builder.appendQueryParameter(PARAM_CLIENT_ID, clientId);
-        builder.appendQueryParameter(PARAM_VERSION, String.valueOf(LIB_VERSION));
-        builder.appendQueryParameter(PARAM_SIGNATURE, getSignatureFingerprint(context));
-        
-        Intent intent = new Intent(Intent.ACTION_VIEW, builder.build());
-        if (isIntentAvailable(context, intent)) {
-            return intent;
+        return getConnectIntent(context, clientId, null);
+    }
+
+    static Intent getConnectIntent(Context context, String clientId, String state) {
+        Uri connectUri = buildConnectUri(clientId, getSignatureFingerprint(context), state);
+        boolean nativeAvailable = isIntentAvailable(context, createNativeConnectIntent(connectUri));
+        return createConnectIntent(context, connectUri, nativeAvailable);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getConnectIntent(Context, String)}.
+     * The signature lookup and the Foursquare app lookup run concurrently on
+     * the supplied executor, and the ready-to-launch intent is delivered to
+     * the callback on the main thread.
+     * 
+     * @param context 
+     *          The context to use. Usually your Application or Activity object.
+     * @param clientId
+     * @param executor
+     *          The executor that runs the {@link android.content.pm.PackageManager}
+     *          work. It should allow at least two tasks to run at once.
+     * @param callback
+     *          Receives the intent on the main thread.
+     */
+    public static void getConnectIntentAsync(Context context, String clientId, Executor executor,
+            ConnectIntentCallback callback) {
+        new ConnectIntentLoader(context.getApplicationContext(), clientId, null, callback).start(executor);
+    }
+    
+    /**
+     * Prepares a {@link android.webkit.WebView} for the web login page shown
+     * when the Foursquare app is not installed. Call this when your login
+     * screen is shown, so the login page is not held up by WebView start-up.
+     * The WebView is created the next time the main thread is idle, reused
+     * across logins and released when the system is low on memory. Does
+     * nothing while {@link #setWebViewProcessIsolated(boolean)} is on.
+     * 
+     * @param context 
+     *          The context to use. Usually your Application or Activity object.
+     */
+    public static void warmUpWebView(Context context) {
+        if (!OAuthProcess.isIsolated()) {
+            WebViewPool.warmUp(context);
         }
+    }
 
-        intent = new Intent(context, FoursquareOAuthWebviewActivity.class);
-        intent.setData(builder.build());
+    /**
+     * Resolves and opens connections to the Foursquare login and token hosts
+     * in the background, so the first request of a login does not wait for
+     * DNS, TCP and TLS. Call this when your login entry point is shown. When
+     * the Foursquare app is not installed this also warms up the browser if
+     * {@link #setCustomTabsRedirectUri(String)} was called, or the WebView
+     * like {@link #warmUpWebView(Context)}. Calls made while the connections
+     * are still warm do nothing.
+     *
+     * @param context
+     *          The context to use. Usually your Application or Activity object.
+     */
+    public static void preconnect(Context context) {
+        Preconnector.preconnect(context, Preconnector.DEFAULT_TTL_MILLIS);
+    }
 
-        return intent;
+    /**
+     * Like {@link #preconnect(Context)}, with the time after which the
+     * connections are no longer considered warm and a new call opens them
+     * again. Defaults to one minute and is capped at five minutes, after
+     * which idle connections are closed by the platform.
+     *
+     * @param context
+     *          The context to use. Usually your Application or Activity object.
+     * @param ttlMillis how long the connections count as warm, in milliseconds.
+     */
+    public static void preconnect(Context context, long ttlMillis) {
+        Preconnector.preconnect(context, ttlMillis);
+    }
+
+    /**
+     * Starts a connect session for the client id. Sessions let an app run
+     * several connect flows at once, for different client ids or accounts,
+     * and match each result to the flow it belongs to. See {@link AuthSession}.
+     * 
+     * @param clientId
+     * @return a new session with a unique id.
+     */
+    public static AuthSession newSession(String clientId) {
+        return AuthSessions.create(clientId);
+    }
+    
+    /**
+     * Looks up an open session by its id, for example the id returned by
+     * {@link AuthCodeResponse#getState()}.
+     * 
+     * @return the session, or null if it was closed or never existed.
+     */
+    public static AuthSession getSession(String sessionId) {
+        return AuthSessions.get(sessionId);
     }
     
     /**
@@ -105,6 +175,12 @@ public final class FoursquareOAuth {
      * @return an AuthCodeResponse object.
      */
     public static AuthCodeResponse getAuthCodeFromResult(int resultCode, Intent data) {
+        AuthCodeResponse response = readAuthCodeResult(resultCode, data);
+        ConnectPaths.finish(response);
+        return response;
+    }
+    
+    private static AuthCodeResponse readAuthCodeResult(int resultCode, Intent data) {
         AuthCodeResponse response = new AuthCodeResponse();
         
         switch (resultCode) {
@@ -113,21 +189,33 @@ public final class FoursquareOAuth {
                 String authCode = data.getStringExtra(INTENT_RESULT_CODE);
                 String errorCode = data.getStringExtra(INTENT_RESULT_ERROR);
                 String errorMessage = data.getStringExtra(INTENT_RESULT_ERROR_MESSAGE);
+                response.setState(data.getStringExtra(INTENT_RESULT_STATE));
                 
-                if (denied) {
-                    response.setException(new FoursquareDenyException());
-                } else {
-                    if (TextUtils.isEmpty(errorCode)) {
+                switch (AuthError.classify(denied, errorCode)) {
+                    case NONE:
                         response.setCode(authCode);
-                    } else if (ERROR_CODE_INVALID_REQUEST.equals(errorCode)) {
+                        String redirectUri = data.getStringExtra(INTENT_RESULT_REDIRECT_URI);
+                        if (redirectUri != null) {
+                            response.setRedirectUri(redirectUri);
+                            CustomTabsFlow.rememberCode(authCode, redirectUri);
+                        }
+                        break;
+                    case DENIED:
+                        response.setException(new FoursquareDenyException());
+                        break;
+                    case INVALID_REQUEST:
                         response.setException(new FoursquareInvalidRequestException(errorMessage));
-                    } else if (ERROR_CODE_UNSUPPORTED_VERSION.equals(errorCode)) {
+                        break;
+                    case UNSUPPORTED_VERSION:
                         response.setException(new FoursquareUnsupportedVersionException(errorMessage));
-                    } else if (ERROR_CODE_INTERNAL_ERROR.equals(errorCode)) {
+                        break;
+                    case INTERNAL_ERROR:
                         response.setException(new FoursquareInternalErrorException(errorMessage));
-                    } else {
+                        break;
+                    case OAUTH:
+                    default:
                         response.setException(new FoursquareOAuthException(errorCode));
-                    }
+                        break;
                 }
                 return response;
                 
@@ -159,9 +247,183 @@ public final class FoursquareOAuth {
         intent.putExtra(TokenExchangeActivity.INTENT_EXTRA_CLIENT_ID, clientId);
         intent.putExtra(TokenExchangeActivity.INTENT_EXTRA_CLIENT_SECRET, clientSecret);
         intent.putExtra(TokenExchangeActivity.INTENT_EXTRA_AUTH_CODE, authCode);
+        intent.putExtra(TokenExchangeActivity.INTENT_EXTRA_REDIRECT_URI, CustomTabsFlow.getRedirectUri(authCode));
         return intent;
     }
     
+    /**
+     * Converts the short-lived auth code into an access token without
+     * starting an activity, for apps that show their own progress UI. The
+     * request runs in the background and the callback is called on the main
+     * thread. Calls for a code that is already being exchanged share the
+     * running request. A code received through a Custom Tab in this process
+     * is sent with its redirect uri. <br>
+     * <br>
+     * We strongly encourage developers to pass the code up to their server and
+     * have the server do the code exchange.
+     * 
+     * @param callback
+     *          Receives the {@link AccessTokenResponse} on the main thread.
+     * 
+     * @see #cancelTokenExchange(String, TokenExchangeCallback)
+     */
+    public static void exchangeToken(String clientId, String clientSecret, String authCode,
+            TokenExchangeCallback callback) {
+        exchangeToken(clientId, clientSecret, authCode, CustomTabsFlow.getRedirectUri(authCode), callback);
+    }
+    
+    /**
+     * Like {@link #exchangeToken(String, String, String, TokenExchangeCallback)},
+     * for a code requested with a redirect uri, such as one from
+     * {@link AuthCodeResponse#getRedirectUri()} that was kept across a
+     * process restart.
+     * 
+     * @param redirectUri
+     *          The redirect uri the code was requested with, or null if none.
+     */
+    public static void exchangeToken(String clientId, String clientSecret, String authCode,
+            String redirectUri, TokenExchangeCallback callback) {
+        TokenExchangeRegistry.attach(clientId, clientSecret, authCode, redirectUri, callback);
+    }
+    
+    /**
+     * Stops the callback passed to
+     * {@link #exchangeToken(String, String, String, TokenExchangeCallback)}
+     * from being called, for example when the screen waiting on it goes
+     * away. The request is cancelled if nothing else is waiting on it.
+     */
+    public static void cancelTokenExchange(String authCode, TokenExchangeCallback callback) {
+        TokenExchangeRegistry.detach(authCode, callback, true);
+    }
+    
+    /**
+     * Sets the executor that runs token exchanges started by
+     * {@link TokenExchangeActivity} or
+     * {@link #exchangeToken(String, String, String, TokenExchangeCallback)}.
+     * By default exchanges run on a small pool owned by the library.
+     * 
+     * @param executor the executor to use, or null to use the library pool.
+     */
+    public static void setTokenExchangeExecutor(Executor executor) {
+        TokenExchangeExecutor.setHostExecutor(executor);
+    }
+    
+    /**
+     * Sets the maximum number of threads in the library's token exchange
+     * pool. Has no effect while an executor set with
+     * {@link #setTokenExchangeExecutor(Executor)} is in use.
+     * 
+     * @param poolSize the number of threads, at least 1. Defaults to 4.
+     */
+    public static void setTokenExchangePoolSize(int poolSize) {
+        TokenExchangeExecutor.setPoolSize(poolSize);
+    }
+    
+    /**
+     * Shows the web login in a browser Custom Tab instead of a WebView when
+     * the Foursquare app is not installed. The login then shares the
+     * browser's cookies, cache and connections. The WebView is still used
+     * when no browser supports Custom Tabs.
+     * <br>
+     * <br>
+     * The redirect uri must be registered for your app with Foursquare, and
+     * {@link FoursquareOAuthRedirectActivity} must be declared in your
+     * manifest with an intent filter for it.
+     * 
+     * @param redirectUri the redirect uri, or null to use the WebView.
+     */
+    public static void setCustomTabsRedirectUri(String redirectUri) {
+        CustomTabsFlow.setRedirectUri(redirectUri);
+    }
+    
+    /**
+     * Lets the library pick the web login over the Foursquare app on devices
+     * where the app has been clearly slower to return an auth code, taking
+     * failed and cancelled logins into account. The decision is based on
+     * this device's {@link #getConnectPathStats(Context)}, which are
+     * recorded whether or not this is on. A tenth of the logins still go
+     * through the app while the web login is picked, so the app gets its
+     * chance to catch up. Off by default.
+     * 
+     * @param latencyAware true to pick the historically faster path.
+     */
+    public static void setLatencyAwareConnectPath(boolean latencyAware) {
+        ConnectPaths.setLatencyAware(latencyAware);
+    }
+    
+    /**
+     * Returns how connect flows have gone on this device through the
+     * Foursquare app and through the web login, and which path
+     * {@link #setLatencyAwareConnectPath(boolean)} would pick.
+     * 
+     * @param context 
+     *          The context to use. Usually your Application or Activity object.
+     */
+    public static ConnectPathStats getConnectPathStats(Context context) {
+        return ConnectPaths.getStats(context);
+    }
+    
+    /**
+     * Runs the WebView login in a separate {@code :fsqoauth} process that is
+     * killed once the login finishes, so the WebView's renderer, caches and
+     * cookie store never load into your app's process. The result is
+     * returned to onActivityResult() as usual. Off by default. Only takes
+     * effect on Android 9 (API 28) and later, where WebView can be given a
+     * separate data directory. Earlier versions keep the login in your
+     * app's process.
+     * <br>
+     * <br>
+     * Your Application's onCreate() also runs in that process. Use
+     * {@link #isWebViewProcess(Context)} to skip initialization the login
+     * does not need there. An {@link OAuthEventListener} does not receive the
+     * web login's phases while this is on.
+     * 
+     * @param isolated true to use a separate process.
+     */
+    public static void setWebViewProcessIsolated(boolean isolated) {
+        OAuthProcess.setIsolated(isolated);
+    }
+    
+    /**
+     * @return true if called in the process the isolated WebView login runs
+     *          in, see {@link #setWebViewProcessIsolated(boolean)}.
+     */
+    public static boolean isWebViewProcess(Context context) {
+        return OAuthProcess.isCurrent(context);
+    }
+    
+    /**
+     * Sets the deadline, timeouts and retry behaviour of token exchanges.
+     * 
+     * @param retryPolicy the policy to use, or null for {@link RetryPolicy#DEFAULT}.
+     */
+    public static void setTokenExchangeRetryPolicy(RetryPolicy retryPolicy) {
+        TokenExchangeTransport.setRetryPolicy(retryPolicy);
+    }
+    
+    /**
+     * Sets the url token exchanges are posted to. Meant for pointing debug
+     * and test builds at a local stub of the Foursquare token endpoint. The
+     * endpoint must be https, or plain http to localhost or 127.0.0.1.
+     * 
+     * @param endpoint the endpoint to use, or null for the Foursquare endpoint.
+     * @throws IllegalArgumentException if the endpoint is plain http to any
+     *         other host.
+     */
+    public static void setTokenExchangeEndpoint(String endpoint) {
+        TokenExchangeTransport.setEndpoint(endpoint);
+    }
+    
+    /**
+     * Sets a listener that receives timings for each phase of connecting
+     * and exchanging the auth code. There is no listener by default.
+     * 
+     * @param listener the listener to use, or null to stop timing.
+     */
+    public static void setEventListener(OAuthEventListener listener) {
+        OAuthEvents.setListener(listener);
+    }
+    
     /**
      * Obtains the {@link AccessTokenResponse} from the intent result bundle
      * returned by {@link TokenExchangeActivity}. This method should be called
@@ -173,12 +435,33 @@ public final class FoursquareOAuth {
      */
     public static AccessTokenResponse getTokenFromResult(int resultCode, Intent data) {
         if (resultCode == Activity.RESULT_OK) {
-            return (AccessTokenResponse) data.getSerializableExtra(TokenExchangeActivity.INTENT_RESULT_RESPONSE);
+            return data.getParcelableExtra(TokenExchangeActivity.INTENT_RESULT_RESPONSE);
         }
 
         return null;
     }
     
+    /**
+     * Enables an on-disk cache for the stylesheets, scripts, fonts and
+     * images of the web login page shown when the Foursquare app is not
+     * installed, so repeat logins load faster on slow networks. The page
+     * itself and anything carrying credentials are never cached. The cache
+     * is off by default and needs API 21.
+     * 
+     * @param maxBytes the most disk space to use, or 0 to turn the cache off.
+     */
+    public static void setWebAssetCacheSize(long maxBytes) {
+        WebAssetCache.setMaxBytes(maxBytes);
+    }
+    
+    /**
+     * Returns how often assets were served by the cache enabled with
+     * {@link #setWebAssetCacheSize(long)} since the process started.
+     */
+    public static WebAssetCacheStats getWebAssetCacheStats() {
+        return WebAssetCache.getStats();
+    }
+    
     /**
      * You can use this method to test if the intent returned by getConnectIntent()
      * would open the Foursquare app detail page on Google Play. This happens when 
@@ -218,60 +501,51 @@ public final class FoursquareOAuth {
         return intent;
     }
     
+    static Uri buildConnectUri(String clientId, String signature, String state) {
+        return Uri.parse(ConnectUris.buildConnectUri(clientId, LIB_VERSION, signature, state));
+    }
+
     /**
-     * This method queries the package manager for installed packages that can
-     * respond to an intent with the specified action.
-     * 
-     * @return true if a suitable package is found.
+     * Returns the native connect intent for the Foursquare app. Resolution
+     * only depends on the scheme and authority, so a uri without query
+     * parameters can be used to probe for the app.
      */
-    private static boolean isIntentAvailable(Context context, Intent intent) {
-        PackageManager packageManager = context.getPackageManager();
-        List<ResolveInfo> resolveInfo = packageManager.queryIntentActivities(
-                intent, PackageManager.MATCH_DEFAULT_ONLY);
+    static Intent createNativeConnectIntent(Uri connectUri) {
+        Intent intent = new Intent(Intent.ACTION_VIEW, connectUri);
+        intent.setPackage(PACKAGE);
+        return intent;
+    }
 
-        return resolveInfo.size() > 0;
+    static Uri getConnectProbeUri() {
+        return new Uri.Builder().scheme(ConnectUris.URI_SCHEME).authority(ConnectUris.URI_AUTHORITY).build();
     }
-    
-    private static String getSignatureFingerprint(Context context) {
-        String callingPackage = context.getApplicationContext().getPackageName();
-        PackageManager pm = context.getPackageManager();
-        int flags = PackageManager.GET_SIGNATURES;
 
-        PackageInfo callingPackageInfo = null;
-        try {
-            callingPackageInfo = pm.getPackageInfo(callingPackage, flags);
-        } catch (NameNotFoundException e) {
-            e.printStackTrace();
-            return null;
+    static Intent createConnectIntent(Context context, Uri connectUri, boolean nativeAvailable) {
+        if (nativeAvailable && !ConnectPaths.pickWeb(context)) {
+            ConnectPaths.start(context, ConnectPathStats.Path.NATIVE, connectUri);
+            return createNativeConnectIntent(connectUri);
         }
-    
-        if (callingPackageInfo != null ){
-            Signature[] signatures = callingPackageInfo.signatures;
-            if (signatures != null && signatures.length > 0) {
-                byte[] cert = signatures[0].toByteArray();
-        
-                try {
-                    MessageDigest md = MessageDigest.getInstance("SHA1");
-                    byte[] fingerprint = md.digest(cert);
-        
-                    StringBuffer hexString = new StringBuffer();
-                    for (int i = 0; i < fingerprint.length; i++) {
-                        String appendString = Integer.toHexString(0xFF & fingerprint[i]);
-                        if (hexString.length() > 0) {
-                            hexString.append(":");
-                        }
-                        if (appendString.length() == 1) hexString.append("0");
-                        hexString.append(appendString);
-                    }
-        
-                    String signature = hexString.toString().toUpperCase(); 
-                    return signature;
-        
-                } catch (NoSuchAlgorithmException e) {
-                    e.printStackTrace();
-                }
-            }
+
+        Intent intent = CustomTabsFlow.createConnectIntent(context, connectUri);
+        if (intent == null) {
+            intent = OAuthProcess.createWebviewIntent(context, connectUri);
         }
-        return null;
+        ConnectPaths.start(context, ConnectPathStats.Path.WEB, intent.getData());
+        return intent;
+    }
+
+    /**
+     * Checks whether the Foursquare app can respond to the connect intent.
+     * The answer is cached until the Foursquare package is added, replaced
+     * or removed.
+     * 
+     * @return true if a suitable package is found.
+     */
+    static boolean isIntentAvailable(Context context, Intent intent) {
+        return NativeAppResolver.isAvailable(context, intent);
+    }
+    
+    static String getSignatureFingerprint(Context context) {
+        return SignatureFingerprintCache.get(context);
     }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+@file:JvmName("FoursquareOAuthCoroutines")
+
+package com.foursquare.android.nativeoauth
+
+import android.content.Context
+import android.content.Intent
+import com.foursquare.android.nativeoauth.model.AccessTokenResponse
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.asExecutor
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.withContext
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/**
+ * The result of an activity started by the launcher passed to [connectFlow].
+ */
+class ConnectResult(val resultCode: Int, val data: Intent?)
+
+/**
+ * The states of the flow returned by [connectFlow], in the order they are
+ * emitted. The flow ends after [Connected] or [Failed], or after
+ * [Authorized] when no client secret is given.
+ */
+sealed class ConnectState {
+
+    /** Looking up the app signature and whether the Foursquare app is installed. */
+    object Preparing : ConnectState()
+
+    /** The connect intent was handed to the launcher and the user is deciding. */
+    object WaitingForUser : ConnectState()
+
+    /** The user connected. Pass the code to your server to exchange it there. */
+    class Authorized(val authCode: String) : ConnectState()
+
+    /** The code is being exchanged for an access token. */
+    object ExchangingToken : ConnectState()
+
+    class Connected(val accessToken: String) : ConnectState()
+
+    /**
+     * The user cancelled or declined, or an error occurred. The exception is
+     * one of the types listed for [FoursquareOAuth.getAuthCodeFromResult] and
+     * [FoursquareOAuth.getTokenFromResult].
+     */
+    class Failed(val exception: Exception) : ConnectState()
+}
+
+/**
+ * Exchanges an auth code for an access token without an activity.
+ *
+ * The request runs on [dispatcher] and the caller is resumed in its own
+ * context, so this is safe to call from the main thread. Concurrent calls for
+ * the same code share one request. Cancelling the caller cancels the request
+ * unless another caller is still waiting on it. [redirectUri] defaults to the
+ * one a code received through a Custom Tab in this process was requested with.
+ *
+ * @return the access token.
+ * @throws FoursquareOAuthException if Foursquare rejected the code.
+ * @throws FoursquareInternalErrorException if the exchange failed.
+ */
+suspend fun exchangeToken(
+    clientId: String,
+    clientSecret: String,
+    authCode: String,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    redirectUri: String? = CustomTabsFlow.getRedirectUri(authCode)
+): String = suspendCancellableCoroutine { continuation ->
+    val listener = object : TokenExchangeCallback {
+        override fun onTokenExchangeComplete(response: AccessTokenResponse) {
+            val exception = response.exception
+            if (exception != null) {
+                continuation.resumeWithException(exception)
+            } else {
+                continuation.resume(response.accessToken)
+            }
+        }
+    }
+    continuation.invokeOnCancellation {
+        TokenExchangeRegistry.detach(authCode, listener, true)
+    }
+    TokenExchangeRegistry.attach(clientId, clientSecret, authCode, redirectUri, dispatcher.asExecutor(), listener)
+}
+
+/**
+ * Runs the whole connect flow and emits its [ConnectState]s.
+ *
+ * The connect intent is built on [dispatcher]. [launcher] is called in the
+ * collector's context with the intent to start, typically with
+ * startActivityForResult, and suspends until the activity returns its
+ * result. If [clientSecret] is given the code is then exchanged for a token
+ * with [exchangeToken], otherwise the flow ends at [ConnectState.Authorized].
+ *
+ * Cancelling the collector cancels a running token exchange.
+ *
+ * ```
+ * connectFlow(context, CLIENT_ID, null) { intent -> startForResult(intent) }
+ *     .collect { state -> render(state) }
+ * ```
+ */
+fun connectFlow(
+    context: Context,
+    clientId: String,
+    clientSecret: String?,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    launcher: suspend (Intent) -> ConnectResult
+): Flow<ConnectState> = flow {
+    emit(ConnectState.Preparing)
+    val appContext = context.applicationContext
+    val intent = withContext(dispatcher) { FoursquareOAuth.getConnectIntent(appContext, clientId) }
+
+    emit(ConnectState.WaitingForUser)
+    val result = launcher(intent)
+    val codeResponse = FoursquareOAuth.getAuthCodeFromResult(result.resultCode, result.data)
+    val codeException = codeResponse.exception
+    if (codeException != null) {
+        emit(ConnectState.Failed(codeException))
+        return@flow
+    }
+
+    val authCode = codeResponse.code
+    emit(ConnectState.Authorized(authCode))
+    if (clientSecret == null) {
+        return@flow
+    }
+
+    emit(ConnectState.ExchangingToken)
+    val state = try {
+        ConnectState.Connected(exchangeToken(clientId, clientSecret, authCode, dispatcher, codeResponse.redirectUri))
+    } catch (e: CancellationException) {
+        throw e
+    } catch (e: Exception) {
+        ConnectState.Failed(e)
+    }
+    emit(state)
+}
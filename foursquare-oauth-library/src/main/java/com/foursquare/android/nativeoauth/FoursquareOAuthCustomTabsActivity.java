@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.app.Activity;
+import android.content.ActivityNotFoundException;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.customtabs.CustomTabsIntent;
+import android.support.customtabs.CustomTabsSession;
+import android.text.TextUtils;
+import android.util.Log;
+
+/**
+ * Shows the web login in a browser Custom Tab and returns its result, in
+ * the same form as {@link FoursquareOAuthWebviewActivity}.
+ * <br>
+ * <br>
+ * The tab is opened on top of this activity. The browser sends the user to
+ * the app's redirect uri, which {@link FoursquareOAuthRedirectActivity}
+ * hands back to this activity. Resuming without a redirect means the user
+ * closed the tab. If the browser cannot be launched, the login falls back
+ * to {@link FoursquareOAuthWebviewActivity}.
+ *
+ * @date 2026-10-17
+ */
+public class FoursquareOAuthCustomTabsActivity extends Activity {
+
+    private static final String TAG = FoursquareOAuthCustomTabsActivity.class.getSimpleName();
+
+    static final String EXTRA_REDIRECT_URI = "com.foursquare.android.nativeoauth.EXTRA_REDIRECT_URI";
+    static final String EXTRA_REDIRECT = "com.foursquare.android.nativeoauth.EXTRA_REDIRECT";
+
+    private static final String KEY_STARTED = "started";
+
+    private static final String ERROR_CODE_INVALID_REQUEST = "invalid_request";
+    private static final String ERROR_CODE_ACCESS_DENIED = "access_denied";
+
+    private Uri connectUri;
+    private String clientId;
+    private String state;
+    private String redirectUri;
+
+    // Set once the tab was opened, so the next resume ends the flow.
+    private boolean started;
+    private Uri redirect;
+    private long authorizeStart;
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        // A redirect that no login is waiting for.
+        if (getIntent().getBooleanExtra(EXTRA_REDIRECT, false)) {
+            finish();
+            return;
+        }
+
+        connectUri = getIntent().getData();
+        redirectUri = getIntent().getStringExtra(EXTRA_REDIRECT_URI);
+        if (connectUri != null) {
+            clientId = connectUri.getQueryParameter(ConnectUris.PARAM_CLIENT_ID);
+            state = connectUri.getQueryParameter(ConnectUris.PARAM_STATE);
+        }
+        if (savedInstanceState != null) {
+            started = savedInstanceState.getBoolean(KEY_STARTED);
+        }
+
+        if (TextUtils.isEmpty(clientId)) {
+            onInvalidConnectRequest("Client id is missing.");
+        } else if (state == null || redirectUri == null) {
+            onInvalidConnectRequest("State or redirect uri is missing.");
+        }
+    }
+
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        if (intent.getBooleanExtra(EXTRA_REDIRECT, false)) {
+            redirect = intent.getData();
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (isFinishing()) {
+            return;
+        }
+
+        if (!started) {
+            started = true;
+            launchTab();
+        } else if (redirect != null) {
+            onRedirect(redirect);
+        } else {
+            endAuthorize(OAuthOutcome.CANCELLED, null);
+            setResult(Activity.RESULT_CANCELED, newResult());
+            finish();
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(KEY_STARTED, started);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (isFinishing()) {
+            CustomTabsFlow.release(this);
+        }
+    }
+
+    private void launchTab() {
+        CustomTabsSession session = CustomTabsFlow.getSession();
+        CustomTabsIntent.Builder builder = session != null
+                ? new CustomTabsIntent.Builder(session)
+                : new CustomTabsIntent.Builder();
+        CustomTabsIntent tab = builder.build();
+        String packageName = CustomTabsFlow.getPackageName(this);
+        if (packageName != null) {
+            tab.intent.setPackage(packageName);
+        }
+
+        authorizeStart = OAuthEvents.start();
+        try {
+            tab.launchUrl(this, CustomTabsFlow.buildAuthenticateUri(clientId, redirectUri, state));
+        } catch (ActivityNotFoundException e) {
+            Log.w(TAG, "Custom Tabs browser is gone, using the WebView instead.");
+            authorizeStart = 0L;
+            Intent intent = OAuthProcess.createWebviewIntent(this, connectUri);
+            intent.addFlags(Intent.FLAG_ACTIVITY_FORWARD_RESULT);
+            startActivity(intent);
+            finish();
+        }
+    }
+
+    /**
+     * The redirect url is of the form REDIRECT_URI?code=CODE&state=STATE or
+     * REDIRECT_URI?error=ERROR&state=STATE. Any app can send it, so it is
+     * only trusted when it carries this request's state.
+     */
+    private void onRedirect(Uri uri) {
+        String url = uri.toString();
+        String code = RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_CODE);
+        String error = RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_ERROR);
+        String returnedState = RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_STATE);
+        Intent result = newResult();
+
+        if (!state.equals(returnedState)) {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR, ERROR_CODE_INVALID_REQUEST);
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR_MESSAGE,
+                    getString(R.string.invalid_connect_request));
+            endAuthorize(OAuthOutcome.ERROR, ERROR_CODE_INVALID_REQUEST);
+
+        } else if (TextUtils.isEmpty(error)) {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_CODE, code);
+            // The code has to be exchanged with the same redirect uri.
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_REDIRECT_URI, redirectUri);
+            endAuthorize(OAuthOutcome.SUCCESS, null);
+
+        } else if (ERROR_CODE_ACCESS_DENIED.equals(error)) {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_DENIED, true);
+            endAuthorize(OAuthOutcome.DENIED, null);
+
+        } else {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR, error);
+            endAuthorize(OAuthOutcome.ERROR, error);
+        }
+
+        setResult(Activity.RESULT_OK, result);
+        finish();
+    }
+
+    private Intent newResult() {
+        Intent result = new Intent();
+        result.putExtra(FoursquareOAuth.INTENT_RESULT_WEB, true);
+        if (state != null) {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_STATE, state);
+        }
+        return result;
+    }
+
+    private void onInvalidConnectRequest(String message) {
+        Log.e(TAG, message);
+
+        Intent data = newResult();
+        data.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR, ERROR_CODE_INVALID_REQUEST);
+        data.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR_MESSAGE, getString(R.string.invalid_connect_request));
+        setResult(Activity.RESULT_OK, data);
+        finish();
+    }
+
+    private void endAuthorize(OAuthOutcome outcome, String errorCode) {
+        OAuthEvents.end(OAuthPhase.WEB_AUTHORIZE, authorizeStart, outcome, errorCode);
+        authorizeStart = 0L;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Bundle;
+
+/**
+ * Receives the redirect at the end of a Custom Tabs login and passes it to
+ * the waiting {@link FoursquareOAuthCustomTabsActivity}, closing the tab on
+ * the way. Apps using Custom Tabs declare an intent filter for their
+ * redirect uri on this activity.
+ *
+ * @date 2026-10-17
+ */
+public class FoursquareOAuthRedirectActivity extends Activity {
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        Intent intent = new Intent(this, FoursquareOAuthCustomTabsActivity.class);
+        intent.setData(getIntent().getData());
+        intent.putExtra(FoursquareOAuthCustomTabsActivity.EXTRA_REDIRECT, true);
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        startActivity(intent);
+        finish();
+    }
+}
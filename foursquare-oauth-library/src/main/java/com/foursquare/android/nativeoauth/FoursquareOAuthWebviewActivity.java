@@ -1,21 +1,23 @@
 package com.foursquare.android.nativeoauth;
 
 import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
 import android.app.Activity;
 import android.content.Intent;
 import android.graphics.Bitmap;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.MenuItem;
-import android.webkit.CookieManager;
-import android.webkit.CookieSyncManager;
+import android.view.ViewGroup;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
@@ -29,13 +31,9 @@ public class FoursquareOAuthWebviewActivity extends Activity {
     private static final String URI_MARKET_PAGE = "market://details?id=com.joelapenna.foursquared";
     private static final String MARKET_REFERRER = "utm_source=foursquare-android-oauth&utm_term=%s";
 
-    private static final String HTTP_FOURSQUARE = "http://foursquare.com";
-
-    private static final String URI_SCHEME = "foursquareauth";
-    private static final String URI_AUTHORITY = "callback";
-
     private static final String PARAM_CLIENT_ID = "client_id";
     private static final String PARAM_SIGNATURE = "androidKeyHash";
+    private static final String PARAM_STATE = "state";
 
     private static final int SUPPORTED_SDK_VERSION = 20130509;
 
@@ -46,14 +44,25 @@ public class FoursquareOAuthWebviewActivity extends Activity {
 
     private String clientId;
     private String appSignature;
+    private String state;
     private WebView webView;
 
+    // Phase start times, 0 when not timing.
+    private long authorizeStart;
+    private long pageStart;
+
+    // Set once the flow's result is known, later navigations are ignored.
+    private boolean redirectHandled;
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
         Uri uri = getIntent().getData();
         if (uri != null) {
+            // Returned with every result so the caller can match it to its request.
+            state = uri.getQueryParameter(PARAM_STATE);
+
             // Finish if no client id was supplied.
             clientId = uri.getQueryParameter(PARAM_CLIENT_ID);
             if (TextUtils.isEmpty(clientId)) {
@@ -81,23 +90,19 @@ public class FoursquareOAuthWebviewActivity extends Activity {
     private void setupWebview() {
         setContentView(R.layout.fragment_webview_oauth);
 
-        webView = findViewById(R.id.webview);
-        webView.getSettings().setJavaScriptEnabled(true);
+        webView = WebViewPool.obtain(this);
+        ViewGroup container = findViewById(R.id.webview_container);
+        container.addView(webView);
         webView.setWebViewClient(new WebViewClient() {
             @Override
             public void onPageStarted(WebView view, String url, Bitmap favicon) {
                 super.onPageStarted(view, url, favicon);
-                Log.d(TAG, "onPageStarted: " + url);
+                if (interceptRedirect(view, url)) {
+                    return;
+                }
                 setProgressBarIndeterminateVisibility(true);
-
-                if (url.startsWith("https://foursquare.com/oauth2/authenticate?")) {
-                    Uri uri = Uri.parse(url);
-                    Intent result = new Intent();
-                    String denied = uri.getQueryParameter("denied");
-                    if ("1".equals(denied)) {
-                        result.putExtra(FoursquareOAuth.INTENT_RESULT_DENIED, true);
-                        setResult(Activity.RESULT_OK, result);
-                    }
+                if (url.startsWith("http")) {
+                    pageStart = OAuthEvents.start();
                 }
             }
 
@@ -105,65 +110,141 @@ public class FoursquareOAuthWebviewActivity extends Activity {
             public void onPageFinished(WebView view, String url) {
                 super.onPageFinished(view, url);
                 setProgressBarIndeterminateVisibility(false);
+                OAuthEvents.success(OAuthPhase.WEB_PAGE_LOAD, pageStart);
+                pageStart = 0L;
             }
 
             @Override
             public void onReceivedError(WebView view, int errorCode, String description, String failingUrl) {
                 super.onReceivedError(view, errorCode, description, failingUrl);
-                Intent data = new Intent();
+                if (redirectHandled) {
+                    // The load was stopped on purpose.
+                    return;
+                }
+                OAuthEvents.end(OAuthPhase.WEB_PAGE_LOAD, pageStart, OAuthOutcome.ERROR, String.valueOf(errorCode));
+                pageStart = 0L;
+                endAuthorize(OAuthOutcome.ERROR, ERROR_CODE_INTERNAL_ERROR);
+                Intent data = newResult();
                 data.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR, ERROR_CODE_INTERNAL_ERROR);
                 data.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR_MESSAGE, description);
                 setResult(Activity.RESULT_OK, data);
                 finish();
             }
 
+            @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+            @Override
+            public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+                // Called on a WebView thread, the cache is safe to use from it.
+                WebAssetCache cache = WebAssetCache.getInstance(getApplicationContext());
+                WebResourceResponse response = cache != null ? cache.intercept(request) : null;
+                return response != null ? response : super.shouldInterceptRequest(view, request);
+            }
+
             @Override
             public boolean shouldOverrideUrlLoading(WebView view, String url) {
-                Log.d(TAG, "shouldOverrideUrlLoading: " + url);
-                Uri uri = Uri.parse(url);
-
-                /*
-                 * Check if redirect url is of the form
-                 * foursquareauth://callback?code=CODE&error=ERROR, then extract
-                 * the code or error code from it.
-                 */
-                if (URI_SCHEME.equals(uri.getScheme())
-                        && URI_AUTHORITY.equals(uri.getAuthority())) {
-                    String code = uri.getQueryParameter("code");
-                    String error = uri.getQueryParameter("error");
-                    Intent result = new Intent();
-
-                    if (TextUtils.isEmpty(error)) {
-                        result.putExtra(FoursquareOAuth.INTENT_RESULT_CODE, code);
-
-                    } else {
-                        if (ERROR_CODE_ACCESS_DENIED.equals(error)) {
-                            result.putExtra(FoursquareOAuth.INTENT_RESULT_DENIED, true);
-                        } else {
-                            result.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR, error);
-                        }
-                    }
-
-                    setResult(Activity.RESULT_OK, result);
-                    finish();
-                    return true;
+                return interceptRedirect(view, url);
+            }
+
+            @TargetApi(Build.VERSION_CODES.N)
+            @Override
+            public boolean shouldOverrideUrlLoading(WebView view, WebResourceRequest request) {
+                return interceptRedirect(view, request.getUrl().toString());
+            }
+        });
+
+        String oauthUrl = String.format(OAUTH_URL, Uri.encode(clientId), Uri.encode(appSignature));
+        if (state != null) {
+            oauthUrl += "&" + PARAM_STATE + "=" + Uri.encode(state);
+        }
+        final String url = oauthUrl;
+        setCookies(createCookiesArray(), new Runnable() {
+            @Override
+            public void run() {
+                // The cookies are stored asynchronously, the activity may be
+                // gone by the time they are.
+                if (!isFinishing() && !isDestroyed()) {
+                    authorizeStart = OAuthEvents.start();
+                    webView.loadUrl(url);
                 }
-                return false;
             }
         });
+    }
 
-        CookieSyncManager.createInstance(this);
-        setCookies(createCookiesArray());
-        ensureCookieSyncManagerAvailable();
-        CookieSyncManager.getInstance().sync();
+    private Intent newResult() {
+        Intent result = new Intent();
+        result.putExtra(FoursquareOAuth.INTENT_RESULT_WEB, true);
+        if (state != null) {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_STATE, state);
+        }
+        return result;
+    }
 
-        webView.loadUrl(String.format(OAUTH_URL, Uri.encode(clientId), Uri.encode(appSignature)));
+    /**
+     * Finishes with the flow's result as soon as a navigation reaches the
+     * callback redirect or the denied page. Called from every hook that
+     * sees a url, whichever fires first handles it and stops the load.
+     *
+     * @return true if the url ends the flow and must not be loaded.
+     */
+    private boolean interceptRedirect(WebView view, String url) {
+        int match = RedirectMatcher.match(url);
+        if (match == RedirectMatcher.NO_MATCH) {
+            return false;
+        }
+        if (redirectHandled) {
+            return true;
+        }
+        redirectHandled = true;
+        view.stopLoading();
+
+        Intent result = newResult();
+        if (match == RedirectMatcher.DENIED) {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_DENIED, true);
+            endAuthorize(OAuthOutcome.DENIED, null);
+            setResult(Activity.RESULT_OK, result);
+            finish();
+            return true;
+        }
+
+        /*
+         * The redirect url is of the form
+         * foursquareauth://callback?code=CODE&error=ERROR, extract the code
+         * or error code from it.
+         */
+        String code = RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_CODE);
+        String error = RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_ERROR);
+        String returnedState = RedirectMatcher.getQueryParameter(url, RedirectMatcher.PARAM_STATE);
+
+        // A redirect that does not carry this request's state was not meant
+        // for it.
+        if (!TextUtils.equals(state, returnedState)) {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR, ERROR_CODE_INVALID_REQUEST);
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR_MESSAGE,
+                    getString(R.string.invalid_connect_request));
+            endAuthorize(OAuthOutcome.ERROR, ERROR_CODE_INVALID_REQUEST);
+
+        } else if (TextUtils.isEmpty(error)) {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_CODE, code);
+            endAuthorize(OAuthOutcome.SUCCESS, null);
+
+        } else if (ERROR_CODE_ACCESS_DENIED.equals(error)) {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_DENIED, true);
+            endAuthorize(OAuthOutcome.DENIED, null);
+
+        } else {
+            result.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR, error);
+            endAuthorize(OAuthOutcome.ERROR, error);
+        }
+
+        setResult(Activity.RESULT_OK, result);
+        finish();
+        return true;
     }
 
     private void onInvalidConnectRequest(String message) {
         Log.e(TAG, message);
 
-        Intent data = new Intent();
+        Intent data = newResult();
         data.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR, ERROR_CODE_INVALID_REQUEST);
         data.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR_MESSAGE, getString(R.string.invalid_connect_request));
         setResult(Activity.RESULT_OK, data);
@@ -180,7 +261,7 @@ public class FoursquareOAuthWebviewActivity extends Activity {
                         .build()
         ));
 
-        Intent data = new Intent();
+        Intent data = newResult();
         data.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR, ERROR_CODE_UNSUPPORTED_VERSION);
         data.putExtra(FoursquareOAuth.INTENT_RESULT_ERROR_MESSAGE, getString(R.string.unsupported_version));
         setResult(Activity.RESULT_OK, data);
@@ -200,16 +281,12 @@ public class FoursquareOAuthWebviewActivity extends Activity {
         if (isFinishing()) {
             // We're going to cheat here and remove only the 'oauth_token'
             // cookie, it's the only one we want to protect.
-            CookieManager cookieManager = CookieManager.getInstance();
-            expireCookie(cookieManager);
-
-            Log.v(TAG, "Cookie test: " + cookieManager.getCookie(HTTP_FOURSQUARE));
+            OAuthCookies.expireOAuthToken();
 
             webView.loadData("<html></html>", "text/html", "utf-8");
         }
 
-        ensureCookieSyncManagerAvailable();
-        CookieSyncManager.getInstance().stopSync();
+        OAuthCookies.stopSync(this);
     }
 
     /**
@@ -217,12 +294,25 @@ public class FoursquareOAuthWebviewActivity extends Activity {
      */
     @Override
     public void onResume() {
-        ensureCookieSyncManagerAvailable();
-        CookieSyncManager.getInstance().startSync();
+        OAuthCookies.startSync(this);
         webView.onResume();
         super.onResume();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (isFinishing()) {
+            endAuthorize(OAuthOutcome.CANCELLED, null);
+        }
+        WebViewPool.release(webView);
+    }
+
+    private void endAuthorize(OAuthOutcome outcome, String errorCode) {
+        OAuthEvents.end(OAuthPhase.WEB_AUTHORIZE, authorizeStart, outcome, errorCode);
+        authorizeStart = 0L;
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
@@ -240,31 +330,43 @@ public class FoursquareOAuthWebviewActivity extends Activity {
         return cookies;
     }
 
-    protected void setCookies(List<String> cookies) {
-        CookieManager cookieManager = CookieManager.getInstance();
-        cookieManager.setAcceptCookie(true);
-
-        for (String cookie : cookies) {
-            Log.e(TAG, "  " + cookie);
-            cookieManager.setCookie(HTTP_FOURSQUARE, cookie);
+    /**
+     * Sets the cookies for foursquare.com in one batch and runs
+     * {@code onComplete} on the main thread once they are all stored. If a
+     * subclass overrides {@link #setCookies(List)}, that override still
+     * decides which cookies are stored, synchronously as before.
+     */
+    protected void setCookies(List<String> cookies, Runnable onComplete) {
+        if (overridesSetCookies()) {
+            setCookies(cookies);
+            onComplete.run();
+            return;
         }
-
-        Log.e(TAG, "cookie for http://foursquare.com : "
-                + cookieManager.getCookie(HTTP_FOURSQUARE));
-        Log.e(TAG, "cookie for url: " + cookieManager.getCookie(HTTP_FOURSQUARE));
+        OAuthCookies.setCookies(this, cookies, onComplete);
     }
 
-    private void ensureCookieSyncManagerAvailable() {
-        try {
-            CookieSyncManager.getInstance();
-        } catch (Exception e) {
-            CookieSyncManager.createInstance(this);
-        }
+    /**
+     * Stores the cookies for foursquare.com synchronously. Only called when
+     * a subclass overrides it.
+     *
+     * @deprecated Override {@link #setCookies(List, Runnable)} instead, which
+     *          does not block the main thread.
+     */
+    @Deprecated
+    protected void setCookies(List<String> cookies) {
+        OAuthCookies.setCookiesSync(this, cookies);
     }
 
-    private static void expireCookie(CookieManager cm) {
-        @SuppressWarnings("deprecation") String gmtExpired = (new Date(System.currentTimeMillis() - 1000L)).toGMTString();
-        cm.setCookie(HTTP_FOURSQUARE, "oauth_token" + "=deleted;expires=" + gmtExpired + ";secure");
+    private boolean overridesSetCookies() {
+        for (Class<?> c = getClass(); c != FoursquareOAuthWebviewActivity.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("setCookies", List.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not overridden at this level.
+            }
+        }
+        return false;
     }
 
     private static String getLocaleString() {
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.os.Bundle;
+
+/**
+ * {@link FoursquareOAuthWebviewActivity} in its own {@code :fsqoauth}
+ * process, used when {@link FoursquareOAuth#setWebViewProcessIsolated(boolean)}
+ * is on. The result reaches the caller through the regular activity result,
+ * and the process is killed once the last login in it finishes, so Chromium
+ * never loads into the app's process.
+ *
+ * @date 2026-10-17
+ */
+public class FoursquareOAuthWebviewProcessActivity extends FoursquareOAuthWebviewActivity {
+
+    /** Static settings do not cross processes, so the cache size travels with the intent. */
+    static final String EXTRA_ASSET_CACHE_BYTES = "com.foursquare.android.nativeoauth.EXTRA_ASSET_CACHE_BYTES";
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        OAuthProcess.prepare(getIntent().getLongExtra(EXTRA_ASSET_CACHE_BYTES, 0L));
+        OAuthProcess.onLoginCreated();
+        super.onCreate(savedInstanceState);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        OAuthProcess.onLoginDestroyed(isFinishing());
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.crypto.AEADBadTagException;
+
+/**
+ * Keeps the user's access token so the connect and exchange flow only has to
+ * run once.
+ * <br>
+ * <br>
+ * Reads are served from memory. The stored token is loaded on a background
+ * thread the first time the store is used, and every change is written
+ * behind on that same thread, encrypted with a key held in the Android
+ * Keystore. No method does disk I/O on the caller's thread.
+ * <br>
+ * <br>
+ * The Keystore AES key used for encryption requires API 23. On older devices
+ * the token is only kept in memory. A stored token is only deleted once it
+ * can never be decrypted again. While the Keystore is locked or failing,
+ * reads return null and the token stays on disk.
+ * 
+ * <pre>
+ * {@code
+ * FoursquareTokenStore store = FoursquareTokenStore.getInstance(context);
+ * store.getToken(new FoursquareTokenStore.Callback() {
+ *     public void onToken(String token) {
+ *         // null if the user has not connected yet.
+ *     }
+ * });
+ * }
+ * </pre>
+ * 
+ * @date 2026-10-17
+ */
+public final class FoursquareTokenStore {
+
+    private static final String TAG = FoursquareTokenStore.class.getSimpleName();
+
+    private static final String FILE_NAME = "com.foursquare.android.nativeoauth.token";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static FoursquareTokenStore sInstance;
+
+    /**
+     * Receives the stored token on the main thread.
+     */
+    public interface Callback {
+        void onToken(String token);
+    }
+
+    private final Context mContext;
+    private final ExecutorService mExecutor;
+    private final KeystoreTokenCipher mCipher;
+
+    // Guarded by this. Once loaded, the in-memory token is authoritative.
+    private String mToken;
+    private boolean mLoaded;
+    private boolean mLoadStarted;
+    private boolean mWriteScheduled;
+    private final List<Callback> mPendingCallbacks = new ArrayList<>(1);
+
+    public static synchronized FoursquareTokenStore getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new FoursquareTokenStore(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private FoursquareTokenStore(Context context) {
+        mContext = context;
+        mCipher = KeystoreTokenCipher.isSupported() ? new KeystoreTokenCipher() : null;
+        mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "FoursquareOAuth-token-store");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the token if it has already been loaded, without waiting for
+     * the disk. Returns null if there is no token or it has not been loaded
+     * yet, in which case loading is started.
+     */
+    public String peekToken() {
+        synchronized (this) {
+            if (mLoaded) {
+                return mToken;
+            }
+        }
+        ensureLoadStarted();
+        return null;
+    }
+
+    /**
+     * Delivers the token to the callback on the main thread once it is
+     * loaded. If it is already in memory the callback is posted right away.
+     */
+    public void getToken(Callback callback) {
+        String token;
+        synchronized (this) {
+            if (!mLoaded) {
+                mPendingCallbacks.add(callback);
+                callback = null;
+            }
+            token = mToken;
+        }
+        if (callback != null) {
+            post(callback, token);
+        } else {
+            ensureLoadStarted();
+        }
+    }
+
+    public synchronized boolean isLoaded() {
+        return mLoaded;
+    }
+
+    /**
+     * Replaces the token in memory immediately and schedules it to be written
+     * to disk. Passing null removes the stored token.
+     */
+    public void setToken(String token) {
+        List<Callback> callbacks;
+        synchronized (this) {
+            mToken = token;
+            mLoaded = true;
+            callbacks = drainPendingCallbacks();
+        }
+        for (Callback callback : callbacks) {
+            post(callback, token);
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * Removes the stored token.
+     */
+    public void clear() {
+        setToken(null);
+    }
+
+    private void ensureLoadStarted() {
+        synchronized (this) {
+            if (mLoaded || mLoadStarted) {
+                return;
+            }
+            mLoadStarted = true;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                String stored = read();
+                String token;
+                List<Callback> callbacks;
+                synchronized (FoursquareTokenStore.this) {
+                    // A token set while we were reading wins over the disk.
+                    if (!mLoaded) {
+                        mToken = stored;
+                        mLoaded = true;
+                    }
+                    token = mToken;
+                    callbacks = drainPendingCallbacks();
+                }
+                for (Callback callback : callbacks) {
+                    post(callback, token);
+                }
+            }
+        });
+    }
+
+    private void scheduleWrite() {
+        synchronized (this) {
+            // Writes are coalesced, the task always persists the latest token.
+            if (mWriteScheduled) {
+                return;
+            }
+            mWriteScheduled = true;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                String token;
+                synchronized (FoursquareTokenStore.this) {
+                    mWriteScheduled = false;
+                    token = mToken;
+                }
+                write(token);
+            }
+        });
+    }
+
+    private List<Callback> drainPendingCallbacks() {
+        List<Callback> callbacks = new ArrayList<>(mPendingCallbacks);
+        mPendingCallbacks.clear();
+        return callbacks;
+    }
+
+    private String read() {
+        if (mCipher == null) {
+            return null;
+        }
+
+        AtomicFile file = getFile();
+        try {
+            byte[] data = file.readFully();
+            return new String(mCipher.decrypt(data), UTF_8);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to read the stored token", e);
+            return null;
+        } catch (KeystoreTokenCipher.UnreadableDataException e) {
+            // The key is gone, e.g. after a backup was restored to a new
+            // device. The data can never be decrypted again.
+            Log.w(TAG, "Deleting the unreadable stored token", e);
+            file.delete();
+            return null;
+        } catch (AEADBadTagException e) {
+            Log.w(TAG, "Deleting the unreadable stored token", e);
+            file.delete();
+            return null;
+        } catch (GeneralSecurityException e) {
+            // The Keystore may just be locked or busy, keep the token for
+            // the next read.
+            Log.w(TAG, "Unable to decrypt the stored token", e);
+            return null;
+        } catch (RuntimeException e) {
+            // AndroidKeyStore throws ProviderException and the like on some
+            // devices. Let the callbacks run rather than the executor die.
+            Log.w(TAG, "Unable to decrypt the stored token", e);
+            return null;
+        }
+    }
+
+    private void write(String token) {
+        if (mCipher == null) {
+            return;
+        }
+
+        AtomicFile file = getFile();
+        if (token == null) {
+            file.delete();
+            return;
+        }
+
+        FileOutputStream out = null;
+        try {
+            byte[] data = mCipher.encrypt(token.getBytes(UTF_8));
+            out = file.startWrite();
+            out.write(data);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to store the token", e);
+            file.failWrite(out);
+        } catch (GeneralSecurityException e) {
+            Log.w(TAG, "Unable to encrypt the token", e);
+            file.failWrite(out);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to encrypt the token", e);
+            file.failWrite(out);
+        }
+    }
+
+    private AtomicFile getFile() {
+        File dir = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                ? mContext.getNoBackupFilesDir()
+                : mContext.getFilesDir();
+        return new AtomicFile(new File(dir, FILE_NAME));
+    }
+
+    private static void post(final Callback callback, final String token) {
+        MAIN_HANDLER.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onToken(token);
+            }
+        });
+    }
+}
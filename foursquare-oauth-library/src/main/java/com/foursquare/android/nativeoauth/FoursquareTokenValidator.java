@@ -0,0 +1,381 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells whether an access token is still valid without a network call on
+ * every launch.
+ * <br>
+ * <br>
+ * A token is checked against an authenticated endpoint and the verdict is
+ * cached in memory and on disk. A verdict younger than the TTL is served as
+ * is. An older one, up to the max staleness, is served right away while a
+ * check runs in the background, so a revoked token is noticed on the next
+ * call after the TTL without ever making the caller wait. Concurrent
+ * validations of the same token share one request. A check that fails
+ * because of the network leaves the last verdict in place.
+ * <br>
+ * <br>
+ * Verdicts are stored under a SHA-256 hash of the token, never the token
+ * itself.
+ * 
+ * <pre>
+ * {@code
+ * FoursquareTokenValidator.getInstance(context).validate(token,
+ *         new FoursquareTokenValidator.Callback() {
+ *     public void onValidity(String token, FoursquareTokenValidator.Validity validity) {
+ *         if (validity == FoursquareTokenValidator.Validity.INVALID) {
+ *             // Ask the user to connect again.
+ *         }
+ *     }
+ * });
+ * }
+ * </pre>
+ * 
+ * @date 2026-10-17
+ */
+public final class FoursquareTokenValidator {
+
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    public static final long DEFAULT_MAX_STALE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final String PREFS_NAME = "com.foursquare.android.nativeoauth.validity";
+    private static final String KEY_VALID_SUFFIX = ".valid";
+    private static final String KEY_CHECKED_AT_SUFFIX = ".checkedAt";
+
+    private static final int TIMEOUT_MILLIS = 10000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static FoursquareTokenValidator sInstance;
+
+    public enum Validity {
+        /** The token was accepted by the last check. */
+        VALID,
+        /** The token was rejected, the user has to connect again. */
+        INVALID,
+        /** The token has never been checked and the check failed. */
+        UNKNOWN
+    }
+
+    /**
+     * Receives the validity of a token on the main thread.
+     */
+    public interface Callback {
+        void onValidity(String token, Validity validity);
+    }
+
+    private final SharedPreferences mPrefs;
+
+    private final ConcurrentMap<String, Verdict> mVerdicts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Check> mChecks = new ConcurrentHashMap<>();
+
+    private volatile String mEndpoint = TokenValidationTransport.DEFAULT_ENDPOINT;
+    private volatile long mTtlMillis = DEFAULT_TTL_MILLIS;
+    private volatile long mMaxStaleMillis = DEFAULT_MAX_STALE_MILLIS;
+
+    private FoursquareTokenValidator(Context context) {
+        // Opening the preferences does not block, they are loaded in the
+        // background and only read from checks running off the main thread.
+        mPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized FoursquareTokenValidator getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new FoursquareTokenValidator(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Sets the endpoint tokens are checked against. The token is appended as
+     * the {@code oauth_token} query parameter, so the endpoint must be
+     * https, or plain http to localhost or 127.0.0.1. Defaults to the
+     * Foursquare {@code users/self} endpoint.
+     * 
+     * @param endpoint the endpoint to use, or null for the default.
+     * @throws IllegalArgumentException if the endpoint is plain http to any
+     *         other host.
+     */
+    public void setEndpoint(String endpoint) {
+        mEndpoint = endpoint != null
+                ? Endpoints.requireSecure(endpoint)
+                : TokenValidationTransport.DEFAULT_ENDPOINT;
+    }
+
+    /**
+     * @param ttlMillis how long a verdict is served without checking again.
+     *          Defaults to {@link #DEFAULT_TTL_MILLIS}.
+     * @param maxStaleMillis how long past the TTL a verdict is still served
+     *          while a check runs in the background. Older verdicts make the
+     *          caller wait for the check. Defaults to
+     *          {@link #DEFAULT_MAX_STALE_MILLIS}.
+     */
+    public void setTtl(long ttlMillis, long maxStaleMillis) {
+        if (ttlMillis < 0 || maxStaleMillis < 0) {
+            throw new IllegalArgumentException("ttlMillis and maxStaleMillis must not be negative");
+        }
+        mTtlMillis = ttlMillis;
+        mMaxStaleMillis = maxStaleMillis;
+    }
+
+    /**
+     * Returns the verdict cached in memory without any I/O, or
+     * {@link Validity#UNKNOWN} if there is none that can be served.
+     */
+    public Validity peekValidity(String token) {
+        Verdict verdict = mVerdicts.get(keyOf(token));
+        return verdict != null && isServable(verdict, System.currentTimeMillis())
+                ? verdict.validity()
+                : Validity.UNKNOWN;
+    }
+
+    /**
+     * Delivers the validity of the token to the callback on the main thread.
+     * When called on the main thread with a servable verdict in memory, the
+     * callback is called before this method returns.
+     */
+    public void validate(String token, Callback callback) {
+        String key = keyOf(token);
+        Verdict verdict = mVerdicts.get(key);
+        long now = System.currentTimeMillis();
+        if (verdict != null && isServable(verdict, now)) {
+            deliver(callback, token, verdict.validity());
+            if (!isFresh(verdict, now)) {
+                check(token, key, null);
+            }
+            return;
+        }
+        check(token, key, callback);
+    }
+
+    /**
+     * Records that the token was rejected elsewhere, for example by a 401
+     * from an API call, so later validations report it as invalid without
+     * a check. A check that was already running when this is called does
+     * not overwrite it.
+     */
+    public void reportInvalid(String token) {
+        String key = keyOf(token);
+        mVerdicts.put(key, new Verdict(false, System.currentTimeMillis()));
+        persist(key);
+    }
+
+    private void check(String token, String key, Callback callback) {
+        Check check = mChecks.get(key);
+        if (check == null) {
+            Check created = new Check(token, key);
+            check = mChecks.putIfAbsent(key, created);
+            if (check == null) {
+                check = created;
+                TokenExchangeExecutor.submit(check);
+            }
+        }
+        if (callback != null && !check.addCallback(callback)) {
+            // The check completed in the meantime.
+            Verdict verdict = mVerdicts.get(key);
+            deliver(callback, token, verdict != null ? verdict.validity() : Validity.UNKNOWN);
+        }
+    }
+
+    private boolean isFresh(Verdict verdict, long now) {
+        return now - verdict.mCheckedAt < mTtlMillis;
+    }
+
+    private boolean isServable(Verdict verdict, long now) {
+        return now - verdict.mCheckedAt < mTtlMillis + mMaxStaleMillis;
+    }
+
+    private Verdict loadPersisted(String key) {
+        long checkedAt = mPrefs.getLong(key + KEY_CHECKED_AT_SUFFIX, -1L);
+        if (checkedAt < 0) {
+            return null;
+        }
+        return new Verdict(mPrefs.getBoolean(key + KEY_VALID_SUFFIX, false), checkedAt);
+    }
+
+    /**
+     * Stores the verdict of a check that started at {@code checkStart},
+     * unless the token was reported invalid since, and returns the verdict
+     * that is current afterwards.
+     */
+    private Verdict storeChecked(String key, Verdict checked, long checkStart) {
+        while (true) {
+            Verdict current = mVerdicts.get(key);
+            if (current != null && !current.mValid && current.mCheckedAt >= checkStart) {
+                return current;
+            }
+            boolean stored = current == null
+                    ? mVerdicts.putIfAbsent(key, checked) == null
+                    : mVerdicts.replace(key, current, checked);
+            if (stored) {
+                persist(key);
+                return checked;
+            }
+        }
+    }
+
+    /**
+     * Writes the current in-memory verdict, so concurrent writers always
+     * leave the last one on disk.
+     */
+    private void persist(String key) {
+        synchronized (mPrefs) {
+            Verdict verdict = mVerdicts.get(key);
+            if (verdict == null) {
+                return;
+            }
+            mPrefs.edit()
+                    .putBoolean(key + KEY_VALID_SUFFIX, verdict.mValid)
+                    .putLong(key + KEY_CHECKED_AT_SUFFIX, verdict.mCheckedAt)
+                    .apply();
+        }
+    }
+
+    private static String keyOf(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Fingerprints.toHex(md.digest(String.valueOf(token).getBytes(UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void deliver(final Callback callback, final String token, final Validity validity) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            callback.onValidity(token, validity);
+            return;
+        }
+        MAIN_HANDLER.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onValidity(token, validity);
+            }
+        });
+    }
+
+    private static final class Verdict {
+        final boolean mValid;
+        final long mCheckedAt;
+
+        Verdict(boolean valid, long checkedAt) {
+            mValid = valid;
+            mCheckedAt = checkedAt;
+        }
+
+        Validity validity() {
+            return mValid ? Validity.VALID : Validity.INVALID;
+        }
+    }
+
+    /**
+     * One check of one token, shared by every caller that asks while it runs.
+     */
+    private final class Check implements Runnable {
+
+        private final String mToken;
+        private final String mKey;
+
+        // Guarded by this.
+        private final List<Callback> mCallbacks = new ArrayList<>(2);
+        private boolean mDone;
+
+        Check(String token, String key) {
+            mToken = token;
+            mKey = key;
+        }
+
+        /**
+         * @return false if the check already completed and the callback was
+         *          not added.
+         */
+        synchronized boolean addCallback(Callback callback) {
+            if (mDone) {
+                return false;
+            }
+            mCallbacks.add(callback);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            Validity validity = Validity.UNKNOWN;
+            try {
+                // A cold process starts from the verdict stored on disk.
+                Verdict verdict = mVerdicts.get(mKey);
+                if (verdict == null) {
+                    verdict = loadPersisted(mKey);
+                    if (verdict != null) {
+                        mVerdicts.putIfAbsent(mKey, verdict);
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (verdict != null && isServable(verdict, now)) {
+                    // Nobody waits for the network when a verdict can be served.
+                    validity = verdict.validity();
+                    complete(validity, false);
+                    if (isFresh(verdict, now)) {
+                        return;
+                    }
+                }
+
+                try {
+                    long checkStart = System.currentTimeMillis();
+                    boolean valid = TokenValidationTransport.isValid(mEndpoint, mToken,
+                            TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+                    Verdict checked = new Verdict(valid, System.currentTimeMillis());
+                    validity = storeChecked(mKey, checked, checkStart).validity();
+                } catch (IOException e) {
+                    // Keep serving the last verdict, if any.
+                }
+            } finally {
+                mChecks.remove(mKey, this);
+                complete(validity, true);
+            }
+        }
+
+        private void complete(Validity validity, boolean done) {
+            List<Callback> callbacks;
+            synchronized (this) {
+                mDone = done;
+                callbacks = new ArrayList<>(mCallbacks);
+                mCallbacks.clear();
+            }
+            for (Callback callback : callbacks) {
+                deliver(callback, mToken, validity);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Encrypts tokens with an AES-GCM key that never leaves the Android
+ * Keystore. The key and the {@link Cipher} are created once and reused, so
+ * callers must not use an instance from more than one thread at a time.
+ * 
+ * @date 2026-10-17
+ */
+@TargetApi(Build.VERSION_CODES.M)
+final class KeystoreTokenCipher {
+
+    private static final String KEYSTORE = "AndroidKeyStore";
+    private static final String KEY_ALIAS = "com.foursquare.android.nativeoauth.token";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int KEY_SIZE_BITS = 256;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private SecretKey mKey;
+    private Cipher mCipher;
+
+    static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+    }
+
+    /**
+     * @return the IV length, followed by the IV and the ciphertext.
+     */
+    byte[] encrypt(byte[] plaintext) throws GeneralSecurityException {
+        Cipher cipher = getCipher();
+        cipher.init(Cipher.ENCRYPT_MODE, getKey(true));
+        byte[] iv = cipher.getIV();
+        byte[] ciphertext = cipher.doFinal(plaintext);
+
+        byte[] out = new byte[1 + iv.length + ciphertext.length];
+        out[0] = (byte) iv.length;
+        System.arraycopy(iv, 0, out, 1, iv.length);
+        System.arraycopy(ciphertext, 0, out, 1 + iv.length, ciphertext.length);
+        return out;
+    }
+
+    /**
+     * @throws UnreadableDataException if the data is truncated or its key is
+     *          gone, and {@link javax.crypto.AEADBadTagException} if the data
+     *          does not match the key. Other exceptions may be temporary,
+     *          e.g. while the Keystore is locked or busy.
+     */
+    byte[] decrypt(byte[] data) throws GeneralSecurityException {
+        if (data.length < 1 || data.length < 1 + (data[0] & 0xFF)) {
+            throw new UnreadableDataException("Truncated token data");
+        }
+        int ivLength = data[0] & 0xFF;
+
+        Cipher cipher = getCipher();
+        cipher.init(Cipher.DECRYPT_MODE, getKey(false), new GCMParameterSpec(TAG_LENGTH_BITS, data, 1, ivLength));
+        return cipher.doFinal(data, 1 + ivLength, data.length - 1 - ivLength);
+    }
+
+    private Cipher getCipher() throws GeneralSecurityException {
+        if (mCipher == null) {
+            mCipher = Cipher.getInstance(TRANSFORMATION);
+        }
+        return mCipher;
+    }
+
+    /**
+     * @param create true to generate the key if it does not exist yet.
+     */
+    private SecretKey getKey(boolean create) throws GeneralSecurityException {
+        if (mKey != null) {
+            return mKey;
+        }
+
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+        try {
+            keyStore.load(null);
+        } catch (IOException e) {
+            throw new GeneralSecurityException(e);
+        }
+
+        KeyStore.Entry entry = keyStore.getEntry(KEY_ALIAS, null);
+        if (entry instanceof KeyStore.SecretKeyEntry) {
+            mKey = ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+        } else if (!create) {
+            throw new UnreadableDataException("Key " + KEY_ALIAS + " is gone");
+        } else {
+            KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE);
+            generator.init(new KeyGenParameterSpec.Builder(KEY_ALIAS,
+                    KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                    .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                    .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                    .setKeySize(KEY_SIZE_BITS)
+                    .build());
+            mKey = generator.generateKey();
+        }
+        return mKey;
+    }
+
+    /**
+     * Thrown when the data can never be decrypted again.
+     */
+    static final class UnreadableDataException extends GeneralSecurityException {
+
+        private static final long serialVersionUID = 1L;
+
+        UnreadableDataException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.PatternMatcher;
+
+/**
+ * Remembers whether the Foursquare app can handle the native connect intent.
+ * <br>
+ * <br>
+ * The first lookup resolves a connect intent targeted at the Foursquare
+ * package and registers a receiver for package added, replaced and removed
+ * broadcasts for that package. Later lookups are a memory read until one of
+ * those broadcasts clears the cached answer.
+ *
+ * @date 2026-10-17
+ */
+final class NativeAppResolver {
+
+    static final String FOURSQUARE_PACKAGE = "com.joelapenna.foursquared";
+
+    private static final int UNKNOWN = 0;
+    private static final int AVAILABLE = 1;
+    private static final int UNAVAILABLE = 2;
+
+    private static volatile int sState = UNKNOWN;
+
+    /** Bumped on every invalidation so a lookup racing a broadcast is not cached. */
+    private static volatile int sGeneration;
+
+    private static boolean sReceiverRegistered;
+
+    private NativeAppResolver() {
+    }
+
+    /**
+     * @param intent a connect intent with its package already set to
+     *          {@link #FOURSQUARE_PACKAGE}.
+     * @return true if the Foursquare app can handle the intent.
+     */
+    static boolean isAvailable(Context context, Intent intent) {
+        int state = sState;
+        if (state != UNKNOWN) {
+            return state == AVAILABLE;
+        }
+
+        Context appContext = context.getApplicationContext();
+        ensureReceiverRegistered(appContext);
+
+        int generation = sGeneration;
+        long start = OAuthEvents.start();
+        PackageManager pm = appContext.getPackageManager();
+        boolean available = pm.resolveActivity(intent, PackageManager.MATCH_DEFAULT_ONLY) != null;
+        OAuthEvents.success(OAuthPhase.RESOLVE_NATIVE_APP, start);
+        synchronized (NativeAppResolver.class) {
+            if (generation == sGeneration) {
+                sState = available ? AVAILABLE : UNAVAILABLE;
+            }
+        }
+        return available;
+    }
+
+    static synchronized void invalidate() {
+        sGeneration++;
+        sState = UNKNOWN;
+    }
+
+    private static synchronized void ensureReceiverRegistered(Context appContext) {
+        if (sReceiverRegistered) {
+            return;
+        }
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addDataScheme("package");
+        filter.addDataSchemeSpecificPart(FOURSQUARE_PACKAGE, PatternMatcher.PATTERN_LITERAL);
+
+        appContext.registerReceiver(new PackageChangeReceiver(), filter);
+        sReceiverRegistered = true;
+    }
+
+    private static final class PackageChangeReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            if (data != null && FOURSQUARE_PACKAGE.equals(data.getSchemeSpecificPart())) {
+                invalidate();
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.webkit.CookieManager;
+import android.webkit.CookieSyncManager;
+import android.webkit.ValueCallback;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Cookie handling for {@link FoursquareOAuthWebviewActivity} that never
+ * blocks the main thread.
+ * <br>
+ * <br>
+ * On API 21 and up, cookies are set with the callback variant of
+ * {@link CookieManager#setCookie(String, String, ValueCallback)} and
+ * {@link CookieManager#flush()} runs on a background thread. On older
+ * devices the deprecated {@link CookieSyncManager} is still needed, but its
+ * periodic background sync is relied on instead of a blocking
+ * {@link CookieSyncManager#sync()}.
+ * <br>
+ * <br>
+ * Must be called on the main thread.
+ * 
+ * @date 2026-10-17
+ */
+@SuppressWarnings("deprecation")
+final class OAuthCookies {
+
+    static final String HTTP_FOURSQUARE = "http://foursquare.com";
+
+    private static final String OAUTH_TOKEN_COOKIE = "oauth_token";
+
+    private static final boolean HAS_ASYNC_API = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
+
+    private static Executor sFlushExecutor;
+
+    private OAuthCookies() {
+    }
+
+    /**
+     * Sets all cookies for {@link #HTTP_FOURSQUARE} in one batch and runs
+     * {@code onComplete} on the main thread once every one of them is stored.
+     */
+    static void setCookies(Context context, List<String> cookies, final Runnable onComplete) {
+        CookieManager cookieManager = CookieManager.getInstance();
+        cookieManager.setAcceptCookie(true);
+
+        if (!HAS_ASYNC_API) {
+            setCookiesSync(context, cookies);
+            onComplete.run();
+            return;
+        }
+
+        if (cookies.isEmpty()) {
+            onComplete.run();
+            return;
+        }
+        setCookiesAsync(cookieManager, cookies, onComplete);
+    }
+
+    /**
+     * Sets the cookies for {@link #HTTP_FOURSQUARE} one at a time, for the
+     * deprecated synchronous path.
+     */
+    static void setCookiesSync(Context context, List<String> cookies) {
+        CookieManager cookieManager = CookieManager.getInstance();
+        cookieManager.setAcceptCookie(true);
+        if (!HAS_ASYNC_API) {
+            CookieSyncManager.createInstance(context.getApplicationContext());
+        }
+        for (String cookie : cookies) {
+            cookieManager.setCookie(HTTP_FOURSQUARE, cookie);
+        }
+    }
+
+    /**
+     * Expires the {@code oauth_token} cookie, the only one we want to protect,
+     * and persists the change in the background.
+     */
+    static void expireOAuthToken() {
+        String gmtExpired = new Date(System.currentTimeMillis() - 1000L).toGMTString();
+        String cookie = OAUTH_TOKEN_COOKIE + "=deleted;expires=" + gmtExpired + ";secure";
+        CookieManager cookieManager = CookieManager.getInstance();
+
+        if (HAS_ASYNC_API) {
+            expireAsync(cookieManager, cookie);
+        } else {
+            cookieManager.setCookie(HTTP_FOURSQUARE, cookie);
+        }
+    }
+
+    static void startSync(Context context) {
+        if (!HAS_ASYNC_API) {
+            CookieSyncManager.createInstance(context.getApplicationContext()).startSync();
+        }
+    }
+
+    static void stopSync(Context context) {
+        if (!HAS_ASYNC_API) {
+            CookieSyncManager.createInstance(context.getApplicationContext()).stopSync();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void setCookiesAsync(CookieManager cookieManager, List<String> cookies,
+            final Runnable onComplete) {
+        final int[] remaining = { cookies.size() };
+        ValueCallback<Boolean> callback = new ValueCallback<Boolean>() {
+            @Override
+            public void onReceiveValue(Boolean value) {
+                if (--remaining[0] == 0) {
+                    onComplete.run();
+                }
+            }
+        };
+        for (String cookie : cookies) {
+            cookieManager.setCookie(HTTP_FOURSQUARE, cookie, callback);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void expireAsync(final CookieManager cookieManager, String cookie) {
+        cookieManager.setCookie(HTTP_FOURSQUARE, cookie, new ValueCallback<Boolean>() {
+            @Override
+            public void onReceiveValue(Boolean value) {
+                getFlushExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        cookieManager.flush();
+                    }
+                });
+            }
+        });
+    }
+
+    private static synchronized Executor getFlushExecutor() {
+        if (sFlushExecutor == null) {
+            sFlushExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "FoursquareOAuth-cookies");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sFlushExecutor;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.annotation.TargetApi;
+import android.app.ActivityManager;
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Process;
+import android.webkit.CookieManager;
+import android.webkit.WebView;
+
+import java.util.List;
+
+/**
+ * The {@code :fsqoauth} process that
+ * {@link FoursquareOAuthWebviewProcessActivity} runs in when the web login
+ * is isolated from the app's process.
+ * <br>
+ * <br>
+ * The process gets its own WebView data directory and its own web asset
+ * cache directory, so it never shares cookie or cache files with the app's
+ * process. It is killed once the last login activity in it finishes, after
+ * its result has been handed to the system and the cookie store flushed.
+ * Logins for several states can run at once, so one finishing never kills
+ * the process under another.
+ *
+ * @date 2026-10-17
+ */
+final class OAuthProcess {
+
+    static final String SUFFIX = "fsqoauth";
+
+    private static volatile boolean sIsolated;
+
+    private static Boolean sIsCurrent;
+    private static boolean sPrepared;
+    // Login activities in this process that have not been destroyed.
+    private static int sLiveLogins;
+
+    private OAuthProcess() {
+    }
+
+    static void setIsolated(boolean isolated) {
+        sIsolated = isolated;
+    }
+
+    /**
+     * @return true if the WebView login runs in the login process. Before
+     *          Android P, WebView cannot be given a separate data directory,
+     *          so the login stays in the calling process there.
+     */
+    static boolean isIsolated() {
+        return sIsolated && Build.VERSION.SDK_INT >= Build.VERSION_CODES.P;
+    }
+
+    /**
+     * Returns an intent for the WebView login, in the login process if it
+     * is isolated and in the calling process otherwise.
+     */
+    static Intent createWebviewIntent(Context context, Uri connectUri) {
+        Intent intent;
+        if (isIsolated()) {
+            intent = new Intent(context, FoursquareOAuthWebviewProcessActivity.class);
+            intent.putExtra(FoursquareOAuthWebviewProcessActivity.EXTRA_ASSET_CACHE_BYTES,
+                    WebAssetCache.getMaxBytes());
+        } else {
+            intent = new Intent(context, FoursquareOAuthWebviewActivity.class);
+        }
+        intent.setData(connectUri);
+        return intent;
+    }
+
+    /**
+     * @return true if this is the login process.
+     */
+    static synchronized boolean isCurrent(Context context) {
+        if (sIsCurrent == null) {
+            String name = getProcessName(context);
+            sIsCurrent = (context.getPackageName() + ":" + SUFFIX).equals(name);
+        }
+        return sIsCurrent;
+    }
+
+    /**
+     * Points WebView and the asset cache at this process's directories.
+     * Must run before the first WebView of the process is created.
+     */
+    static synchronized void prepare(long assetCacheBytes) {
+        if (sPrepared) {
+            return;
+        }
+        sPrepared = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            WebView.setDataDirectorySuffix(SUFFIX);
+        }
+        WebAssetCache.setDirectorySuffix(SUFFIX);
+        WebAssetCache.setMaxBytes(assetCacheBytes);
+    }
+
+    static synchronized void onLoginCreated() {
+        sLiveLogins++;
+    }
+
+    /**
+     * Counts a login activity as gone, and tears the process down if it
+     * was finishing and no other login is left in it.
+     */
+    static void onLoginDestroyed(boolean finishing) {
+        synchronized (OAuthProcess.class) {
+            sLiveLogins--;
+            if (!finishing || sLiveLogins > 0) {
+                return;
+            }
+        }
+        tearDown();
+    }
+
+    /**
+     * Flushes the cookie store and kills this process, off the main thread
+     * so the activity finishes being destroyed first. A login started in
+     * the meantime keeps the process alive.
+     */
+    private static void tearDown() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                    CookieManager.getInstance().flush();
+                }
+                synchronized (OAuthProcess.class) {
+                    if (sLiveLogins > 0) {
+                        return;
+                    }
+                    Process.killProcess(Process.myPid());
+                }
+            }
+        }, "FoursquareOAuth-teardown");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static String getProcessName(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return getProcessNameP();
+        }
+
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        List<ActivityManager.RunningAppProcessInfo> processes = am != null ? am.getRunningAppProcesses() : null;
+        if (processes != null) {
+            int pid = Process.myPid();
+            for (ActivityManager.RunningAppProcessInfo process : processes) {
+                if (process.pid == pid) {
+                    return process.processName;
+                }
+            }
+        }
+        return null;
+    }
+
+    @TargetApi(Build.VERSION_CODES.P)
+    private static String getProcessNameP() {
+        return Application.getProcessName();
+    }
+}
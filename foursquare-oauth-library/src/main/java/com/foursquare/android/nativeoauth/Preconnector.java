@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the connections a login is about to need, before the user asks for
+ * it.
+ * <br>
+ * <br>
+ * The token endpoint is resolved and connected to on the token exchange
+ * pool, leaving the socket in the platform's keep-alive pool and the TLS
+ * session in the shared session cache. When the Foursquare app is not
+ * installed, the browser's Custom Tabs service is bound and warmed up, or
+ * the pooled WebView preconnects to the web login page's origin. Neither
+ * stack hands out its sockets, so they are closed by their own idle
+ * timeouts. The TTL is how long a preconnect counts as warm: calls
+ * within it do nothing, and it is capped at the keep-alive pool's five
+ * minute idle timeout so a preconnect is never trusted past its sockets.
+ *
+ * @date 2026-10-17
+ */
+final class Preconnector {
+
+    private static final String TAG = Preconnector.class.getSimpleName();
+
+    static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    static final long MAX_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final String WEB_ORIGIN = "https://foursquare.com";
+    private static final int TIMEOUT_MILLIS = 10000;
+
+    /** {@link SystemClock#elapsedRealtime()} until which the hosts are warm. */
+    private static long sWarmUntil;
+
+    private Preconnector() {
+    }
+
+    static void preconnect(Context context, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis <= 0");
+        }
+        synchronized (Preconnector.class) {
+            long now = SystemClock.elapsedRealtime();
+            if (now < sWarmUntil) {
+                return;
+            }
+            sWarmUntil = now + Math.min(ttlMillis, MAX_TTL_MILLIS);
+        }
+
+        final Context appContext = context.getApplicationContext();
+        TokenExchangeExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                boolean nativeAvailable = FoursquareOAuth.isIntentAvailable(appContext,
+                        FoursquareOAuth.createNativeConnectIntent(FoursquareOAuth.getConnectProbeUri()));
+                if (nativeAvailable && !ConnectPaths.preferWeb(appContext)) {
+                    // The login happens in the Foursquare app.
+                } else if (CustomTabsFlow.isEnabled(appContext)) {
+                    CustomTabsFlow.warmUp(appContext);
+                } else if (!OAuthProcess.isIsolated()) {
+                    WebViewPool.preconnect(appContext, WEB_ORIGIN);
+                }
+
+                try {
+                    TokenExchangeTransport.preconnect(TIMEOUT_MILLIS);
+                } catch (IOException e) {
+                    // Nothing is warm, let the next call try again.
+                    Log.w(TAG, "Unable to preconnect to the token endpoint", e);
+                    invalidate();
+                }
+            }
+        });
+    }
+
+    static synchronized void invalidate() {
+        sWarmUntil = 0L;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.PackageManager.NameNotFoundException;
+import android.content.pm.Signature;
+import android.util.Log;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Caches the SHA-1 fingerprint of the calling app's signing certificate.
+ * <br>
+ * <br>
+ * The fingerprint is kept in memory for the lifetime of the process and
+ * persisted in {@link SharedPreferences} so that a cold process only needs a
+ * light {@link PackageManager#getPackageInfo(String, int)} call (without
+ * {@link PackageManager#GET_SIGNATURES}) to validate it. The persisted value
+ * is keyed by package name, version code and last update time, so it is
+ * recomputed after the app is reinstalled or updated.
+ *
+ * @date 2026-10-17
+ */
+final class SignatureFingerprintCache {
+
+    private static final String TAG = SignatureFingerprintCache.class.getSimpleName();
+
+    private static final String PREFS_NAME = "com.foursquare.android.nativeoauth.fingerprint";
+    private static final String KEY_PACKAGE = "package";
+    private static final String KEY_VERSION_CODE = "versionCode";
+    private static final String KEY_LAST_UPDATE_TIME = "lastUpdateTime";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+
+    /**
+     * An app update always restarts the process, so once computed the
+     * in-memory value never needs to be revalidated.
+     */
+    private static volatile String sFingerprint;
+
+    private SignatureFingerprintCache() {
+    }
+
+    /**
+     * Returns the colon delimited, upper case SHA-1 fingerprint of the
+     * calling app's signing certificate, or null if it cannot be computed.
+     */
+    static String get(Context context) {
+        String fingerprint = sFingerprint;
+        if (fingerprint != null) {
+            return fingerprint;
+        }
+
+        long start;
+        synchronized (SignatureFingerprintCache.class) {
+            fingerprint = sFingerprint;
+            if (fingerprint != null) {
+                return fingerprint;
+            }
+            start = OAuthEvents.start();
+            fingerprint = load(context.getApplicationContext());
+            sFingerprint = fingerprint;
+        }
+
+        // Reported outside the lock, the listener is app code.
+        if (fingerprint != null) {
+            OAuthEvents.success(OAuthPhase.FINGERPRINT, start);
+        } else {
+            OAuthEvents.end(OAuthPhase.FINGERPRINT, start, OAuthOutcome.ERROR, "no_signature");
+        }
+        return fingerprint;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String load(Context context) {
+        String packageName = context.getPackageName();
+        PackageManager pm = context.getPackageManager();
+
+        PackageInfo packageInfo;
+        try {
+            packageInfo = pm.getPackageInfo(packageName, 0);
+        } catch (NameNotFoundException e) {
+            Log.e(TAG, "Unable to find package info for " + packageName, e);
+            return null;
+        }
+
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String persisted = prefs.getString(KEY_FINGERPRINT, null);
+        if (persisted != null
+                && packageName.equals(prefs.getString(KEY_PACKAGE, null))
+                && prefs.getInt(KEY_VERSION_CODE, -1) == packageInfo.versionCode
+                && prefs.getLong(KEY_LAST_UPDATE_TIME, -1L) == packageInfo.lastUpdateTime) {
+            return persisted;
+        }
+
+        String fingerprint = compute(pm, packageName);
+        if (fingerprint != null) {
+            prefs.edit()
+                    .putString(KEY_PACKAGE, packageName)
+                    .putInt(KEY_VERSION_CODE, packageInfo.versionCode)
+                    .putLong(KEY_LAST_UPDATE_TIME, packageInfo.lastUpdateTime)
+                    .putString(KEY_FINGERPRINT, fingerprint)
+                    .apply();
+        }
+        return fingerprint;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String compute(PackageManager pm, String packageName) {
+        PackageInfo packageInfo;
+        try {
+            packageInfo = pm.getPackageInfo(packageName, PackageManager.GET_SIGNATURES);
+        } catch (NameNotFoundException e) {
+            Log.e(TAG, "Unable to find signatures for " + packageName, e);
+            return null;
+        }
+
+        Signature[] signatures = packageInfo.signatures;
+        if (signatures == null || signatures.length == 0) {
+            return null;
+        }
+
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA1");
+            return Fingerprints.toHex(md.digest(signatures[0].toByteArray()));
+        } catch (NoSuchAlgorithmException e) {
+            Log.e(TAG, "SHA1 is not available", e);
+            return null;
+        }
+    }
+}
@@ -18,26 +18,12 @@ package com.foursquare.android.nativeoauth;
 import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Intent;
-import android.os.AsyncTask;
 import android.os.Bundle;
-import android.text.TextUtils;
 import android.view.MotionEvent;
 import android.view.Window;
 
 import com.foursquare.android.nativeoauth.model.AccessTokenResponse;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.ByteArrayOutputStream;
-import java.io.Closeable;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.Serializable;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-
 /**
  * A utility {@link Activity} that converts a short-lived auth code into an
  * access token. Do not start this activity directly. Obtain an intent from
@@ -57,6 +43,11 @@ import java.net.URL;
  * and have the server do the code exchange, this {@link Activity} is an
  * optional part of the native Foursquare auth process. <br>
  * <br>
+ * This activity only shows a progress dialog around
+ * {@link FoursquareOAuth#exchangeToken(String, String, String, TokenExchangeCallback)}.
+ * Apps with their own progress UI can call that directly and skip the
+ * activity launch. <br>
+ * <br>
  * 
  * @see <a href="https://developer.foursquare.com/overview/auth#access"
  *      >https://developer.foursquare.com/overview/auth#access</a>
@@ -72,17 +63,23 @@ public final class TokenExchangeActivity extends Activity {
     public static final String INTENT_EXTRA_CLIENT_SECRET = TAG + ".INTENT_EXTRA_CLIENT_SECRET";
 
     public static final String INTENT_EXTRA_AUTH_CODE = TAG + ".INTENT_EXTRA_AUTH_CODE";
+
+    static final String INTENT_EXTRA_REDIRECT_URI = TAG + ".INTENT_EXTRA_REDIRECT_URI";
     
     public static final String INTENT_RESULT_RESPONSE = TAG + ".INTENT_RESULT_RESPONSE";
     
-    private static final String INTENT_EXTRA_TOKEN_EXCHANGE_TASK = TAG + ".INTENT_EXTRA_TOKEN_EXCHANGE_TASK";
+    private static final String STATE_RESPONSE = TAG + ".STATE_RESPONSE";
     
-    private static final String HTTP_BASE = "https://foursquare.com/oauth2/access_token?";
+    private String mAuthCode;
     
-    private static final String ACCESS_TOKEN_URL = HTTP_BASE
-            + "client_id=%s&client_secret=%s&grant_type=authorization_code&code=%s";
+    private AccessTokenResponse mResponse;
     
-    private TokenExchangeTask mTask;
+    private final TokenExchangeCallback mListener = new TokenExchangeCallback() {
+        @Override
+        public void onTokenExchangeComplete(AccessTokenResponse response) {
+            onTokenComplete(response);
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -93,22 +90,36 @@ public final class TokenExchangeActivity extends Activity {
         
         String clientId = getIntent().getStringExtra(INTENT_EXTRA_CLIENT_ID);
         String clientSecret = getIntent().getStringExtra(INTENT_EXTRA_CLIENT_SECRET);
-        String authCode = getIntent().getStringExtra(INTENT_EXTRA_AUTH_CODE);
+        mAuthCode = getIntent().getStringExtra(INTENT_EXTRA_AUTH_CODE);
+        String redirectUri = getIntent().getStringExtra(INTENT_EXTRA_REDIRECT_URI);
         
-        if (savedInstanceState == null) {
-            mTask = new TokenExchangeTask(this);
-            mTask.execute(clientId, clientSecret, authCode);
-            
-        } else {
-            mTask = (TokenExchangeTask) savedInstanceState.getSerializable(INTENT_EXTRA_TOKEN_EXCHANGE_TASK);
-            mTask.setActivity(this);
+        // A result that arrived before the process was killed is restored
+        // rather than exchanging the code again.
+        if (savedInstanceState != null) {
+            AccessTokenResponse saved = savedInstanceState.getParcelable(STATE_RESPONSE);
+            if (saved != null) {
+                onTokenComplete(saved);
+                return;
+            }
         }
+        
+        // Joins the running exchange for this code after a configuration
+        // change, or starts one.
+        TokenExchangeRegistry.attach(clientId, clientSecret, mAuthCode, redirectUri, mListener);
     }
     
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
-        outState.putSerializable(INTENT_EXTRA_TOKEN_EXCHANGE_TASK, mTask);
+        if (mResponse != null) {
+            outState.putParcelable(STATE_RESPONSE, mResponse);
+        }
+    }
+    
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        TokenExchangeRegistry.detach(mAuthCode, mListener, isFinishing());
     }
     
     @Override
@@ -123,6 +134,8 @@ public final class TokenExchangeActivity extends Activity {
     }
     
     private void onTokenComplete(AccessTokenResponse response) {
+        mResponse = response;
+        
         Intent data = new Intent();
         data.putExtra(INTENT_RESULT_RESPONSE, response);
         
@@ -134,96 +147,4 @@ public final class TokenExchangeActivity extends Activity {
     private int getThemeRes() {
         return android.R.style.Theme_DeviceDefault_Light_Dialog_NoActionBar_MinWidth;
     }
-    
-    static class TokenExchangeTask extends AsyncTask<String, Void, AccessTokenResponse> implements Serializable {
-        
-        private static final long serialVersionUID = 1L;
-        
-        private transient TokenExchangeActivity mActivity;
-        
-        public TokenExchangeTask(TokenExchangeActivity activity) {
-            mActivity = activity;
-        }
-        
-        public void setActivity(TokenExchangeActivity activity) {
-            mActivity = activity;
-        }
-
-        @Override
-        protected AccessTokenResponse doInBackground(String... params) {
-            String accessTokenUrl = String.format(ACCESS_TOKEN_URL, params[0], params[1], params[2]);
-            AccessTokenResponse result = null;
-            HttpURLConnection connection = null;
-            
-            try {
-                URL url = new URL(accessTokenUrl);
-                connection = (HttpURLConnection) url.openConnection();
-                InputStream in = connection.getInputStream();
-                String json = readStream(in);
-                result = parseAccessToken(json);
-                
-            } catch (MalformedURLException e) {
-                result = createErrorResponse(e);
-            } catch (IOException e) {
-                result = createErrorResponse(e);
-            } catch (JSONException e) {
-                result = createErrorResponse(e);
-            } catch (Exception e) {
-                result = createErrorResponse(e);
-            } finally {
-                if (connection != null) {
-                    connection.disconnect();
-                }
-            }
-            return result;
-        }
-
-        @Override
-        protected void onPostExecute(AccessTokenResponse result) {
-            mActivity.onTokenComplete(result);
-        }
-        
-        private String readStream(InputStream in) throws IOException {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            try {
-                byte[] buffer = new byte[1024];
-                for (int count; (count = in.read(buffer)) != -1;) {
-                    out.write(buffer, 0, count);
-                }
-                return new String(out.toByteArray(), "UTF-8");
-            } finally {
-                closeQuietly(out);
-            }
-        }
-        
-        private void closeQuietly(Closeable closeable) {
-            try {
-                if (closeable != null) {
-                    closeable.close();
-                }
-            } catch (IOException ioe) {
-                // no-op
-            }
-        }
-        
-        private AccessTokenResponse parseAccessToken(String json) throws JSONException {
-            AccessTokenResponse response = new AccessTokenResponse();
-            JSONObject obj = new JSONObject(json);
-            String errorCode = obj.optString("error");
-            
-            if (TextUtils.isEmpty(errorCode)) {
-                response.setAccessToken(obj.optString("access_token"));
-            } else {
-                response.setException(new FoursquareOAuthException(errorCode));
-            }
-            
-            return response;
-        }
-        
-        private AccessTokenResponse createErrorResponse(Exception e) {
-            AccessTokenResponse response = new AccessTokenResponse();
-            response.setException(new FoursquareInternalErrorException(e));
-            return response;
-        }
-    }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import com.foursquare.android.nativeoauth.model.AccessTokenResponse;
+
+/**
+ * Receives the result of
+ * {@link FoursquareOAuth#exchangeToken(String, String, String, TokenExchangeCallback)}.
+ * 
+ * @date 2026-10-17
+ */
+public interface TokenExchangeCallback {
+
+    /**
+     * Called on the main thread once the exchange completes. Check
+     * {@link AccessTokenResponse#getException()} before reading the token.
+     */
+    void onTokenExchangeComplete(AccessTokenResponse response);
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs token exchanges on a small pool owned by the library, so an exchange
+ * never waits behind unrelated work queued by the host app. Apps that manage
+ * their own threads can supply an {@link Executor} instead.
+ * 
+ * @date 2026-10-17
+ */
+final class TokenExchangeExecutor {
+
+    static final int DEFAULT_POOL_SIZE = 4;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static Executor sHostExecutor;
+    private static int sPoolSize = DEFAULT_POOL_SIZE;
+    private static ThreadPoolExecutor sPool;
+
+    private TokenExchangeExecutor() {
+    }
+
+    static synchronized void setHostExecutor(Executor executor) {
+        sHostExecutor = executor;
+    }
+
+    static synchronized void setPoolSize(int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize < 1");
+        }
+        sPoolSize = poolSize;
+        if (sPool != null) {
+            if (poolSize > sPool.getMaximumPoolSize()) {
+                sPool.setMaximumPoolSize(poolSize);
+                sPool.setCorePoolSize(poolSize);
+            } else {
+                sPool.setCorePoolSize(poolSize);
+                sPool.setMaximumPoolSize(poolSize);
+            }
+        }
+    }
+
+    /**
+     * Schedules the task and returns a {@link Future} that can be used to
+     * cancel it, whichever executor ends up running it.
+     */
+    static Future<?> submit(Runnable task) {
+        return submit(task, null);
+    }
+
+    /**
+     * Like {@link #submit(Runnable)}, but runs the task on the given
+     * executor instead, unless it is null.
+     */
+    static Future<?> submit(Runnable task, Executor executor) {
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        (executor != null ? executor : getExecutor()).execute(future);
+        return future;
+    }
+
+    private static synchronized Executor getExecutor() {
+        if (sHostExecutor != null) {
+            return sHostExecutor;
+        }
+        if (sPool == null) {
+            sPool = new ThreadPoolExecutor(sPoolSize, sPoolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory());
+            sPool.allowCoreThreadTimeOut(true);
+        }
+        return sPool;
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "FoursquareOAuth-exchange-" + mCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.foursquare.android.nativeoauth.model.AccessTokenResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Single-flight registry of token exchanges, keyed by auth code.
+ * <br>
+ * <br>
+ * Attaching to a code that is already being exchanged joins the running
+ * request instead of starting a new one, so an activity recreated after a
+ * configuration change, or a duplicate launch for the same code, never makes
+ * a second network call. Answers from the server, a token or an OAuth error,
+ * are kept for {@link #RESULT_TTL_MILLIS} so a late listener gets them
+ * immediately. Transport failures are not kept, so a retry makes a new
+ * request. A detached listener is never called, even if the result was
+ * already on its way to it.
+ * <br>
+ * <br>
+ * Each exchange is guarded by its own lock, so unrelated exchanges never
+ * contend with each other.
+ * 
+ * @date 2026-10-17
+ */
+final class TokenExchangeRegistry {
+
+    static final long RESULT_TTL_MILLIS = 60 * 1000;
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static final ConcurrentMap<String, Exchange> EXCHANGES = new ConcurrentHashMap<>();
+
+    private TokenExchangeRegistry() {
+    }
+
+    /**
+     * Attaches the listener to the exchange for the auth code, starting the
+     * exchange if there is none running or recently completed. When called
+     * on the main thread with a completed exchange, the listener is called
+     * before this method returns. A non-null redirect uri is sent with the
+     * code, as the endpoint requires for codes requested with one.
+     */
+    static void attach(String clientId, String clientSecret, String authCode, String redirectUri,
+            TokenExchangeCallback listener) {
+        attach(clientId, clientSecret, authCode, redirectUri, null, listener);
+    }
+
+    /**
+     * Like {@link #attach(String, String, String, String, TokenExchangeCallback)},
+     * but a new exchange runs on {@code executor} instead of the library
+     * pool, unless it is null. Joining a running exchange leaves it where it
+     * is.
+     */
+    static void attach(String clientId, String clientSecret, String authCode, String redirectUri,
+            Executor executor, TokenExchangeCallback listener) {
+        pruneExpired();
+
+        String key = String.valueOf(authCode);
+        while (true) {
+            Exchange exchange = EXCHANGES.get(key);
+            if (exchange == null) {
+                Exchange created = new Exchange(authCode, clientId, clientSecret, redirectUri);
+                exchange = EXCHANGES.putIfAbsent(key, created);
+                if (exchange == null) {
+                    exchange = created;
+                    exchange.start(executor);
+                }
+            }
+            if (exchange.addListener(listener, executor)) {
+                return;
+            }
+            // Cancelled or dropped by another thread since it was looked up.
+            EXCHANGES.remove(key, exchange);
+        }
+    }
+
+    /**
+     * Detaches the listener. If {@code cancelIfUnused} is set and nobody else
+     * is waiting on a running exchange, the exchange is cancelled.
+     */
+    static void detach(String authCode, TokenExchangeCallback listener, boolean cancelIfUnused) {
+        String key = String.valueOf(authCode);
+        Exchange exchange = EXCHANGES.get(key);
+        if (exchange != null && exchange.removeListener(listener, cancelIfUnused)) {
+            EXCHANGES.remove(key, exchange);
+        }
+    }
+
+    private static void pruneExpired() {
+        long now = SystemClock.elapsedRealtime();
+        for (Iterator<Exchange> it = EXCHANGES.values().iterator(); it.hasNext();) {
+            if (it.next().expire(now)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Exchange implements Runnable {
+
+        private final String mAuthCode;
+        private final String mClientId;
+        private final String mClientSecret;
+        private final String mRedirectUri;
+
+        // Guarded by this.
+        private final List<TokenExchangeCallback> mListeners = new ArrayList<>(2);
+        private AccessTokenResponse mResult;
+        private long mCompletedAt;
+        private boolean mFailed;
+        private Future<?> mFuture;
+        private boolean mCancelled;
+        // Set once the exchange leaves the registry, so it takes no listeners.
+        private boolean mDropped;
+
+        Exchange(String authCode, String clientId, String clientSecret, String redirectUri) {
+            mAuthCode = authCode;
+            mClientId = clientId;
+            mClientSecret = clientSecret;
+            mRedirectUri = redirectUri;
+        }
+
+        synchronized void start(Executor executor) {
+            mFuture = TokenExchangeExecutor.submit(this, executor);
+        }
+
+        /**
+         * Adds the listener, starting the exchange again first if it failed,
+         * so a new listener gets a new request instead of the failure.
+         *
+         * @return false if the exchange was cancelled or dropped from the
+         *          registry, and the listener was not added.
+         */
+        boolean addListener(final TokenExchangeCallback listener, Executor executor) {
+            final AccessTokenResponse result;
+            boolean onMainThread = Looper.myLooper() == Looper.getMainLooper();
+            synchronized (this) {
+                if (mCancelled || mDropped) {
+                    return false;
+                }
+                if (mFailed) {
+                    mFailed = false;
+                    mResult = null;
+                    start(executor);
+                }
+                result = mResult;
+                if (result == null || !onMainThread) {
+                    mListeners.add(listener);
+                }
+            }
+            if (result == null) {
+                return true;
+            }
+            if (onMainThread) {
+                listener.onTokenExchangeComplete(result);
+            } else {
+                deliver(listener, result);
+            }
+            return true;
+        }
+
+        /**
+         * @return true if the exchange was cancelled and should be dropped
+         *          from the registry.
+         */
+        synchronized boolean removeListener(TokenExchangeCallback listener, boolean cancelIfUnused) {
+            mListeners.remove(listener);
+            if (!cancelIfUnused || !mListeners.isEmpty() || mResult != null) {
+                return false;
+            }
+            mCancelled = true;
+            if (mFuture != null) {
+                mFuture.cancel(true);
+            }
+            return true;
+        }
+
+        /**
+         * @return true if the result has outlived its TTL, in which case the
+         *          exchange takes no more listeners.
+         */
+        synchronized boolean expire(long now) {
+            if (mResult != null && !mFailed && now - mCompletedAt > RESULT_TTL_MILLIS) {
+                mDropped = true;
+            }
+            return mDropped;
+        }
+
+        @Override
+        public void run() {
+            long start = OAuthEvents.start();
+            AccessTokenResponse result;
+            String errorCode = null;
+            boolean fromServer = false;
+            try {
+                AccessTokenParser.Result parsed =
+                        TokenExchangeTransport.exchange(mClientId, mClientSecret, mAuthCode, mRedirectUri);
+                errorCode = parsed.errorCode;
+                result = createResponse(parsed);
+                fromServer = true;
+            } catch (IOException e) {
+                errorCode = OAuthEvents.errorCode(e);
+                result = createErrorResponse(e);
+            } catch (Exception e) {
+                errorCode = OAuthEvents.errorCode(e);
+                result = createErrorResponse(e);
+            }
+
+            List<TokenExchangeCallback> listeners = null;
+            synchronized (this) {
+                if (!mCancelled) {
+                    mResult = result;
+                    mCompletedAt = SystemClock.elapsedRealtime();
+                    mFailed = !fromServer;
+                    // Listeners stay attached until their callback runs, so
+                    // detaching one in the meantime still stops it.
+                    listeners = new ArrayList<>(mListeners);
+                }
+            }
+            // Events are reported outside the lock, the listener is app code.
+            if (listeners == null) {
+                OAuthEvents.end(OAuthPhase.TOKEN_EXCHANGE, start, OAuthOutcome.CANCELLED, null);
+                return;
+            }
+            OAuthEvents.end(OAuthPhase.TOKEN_EXCHANGE, start,
+                    errorCode == null ? OAuthOutcome.SUCCESS : OAuthOutcome.ERROR, errorCode);
+
+            for (TokenExchangeCallback listener : listeners) {
+                deliver(listener, result);
+            }
+            // Only listeners already waiting get a transport failure. The
+            // exchange stays registered until they are called, so they can
+            // still be detached, and a new listener restarts it.
+            final boolean failed = !fromServer;
+            MAIN_HANDLER.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (Exchange.this) {
+                        if (failed && !mFailed) {
+                            // Restarted by a new listener.
+                            return;
+                        }
+                        mDropped = true;
+                    }
+                    EXCHANGES.remove(String.valueOf(mAuthCode), Exchange.this);
+                }
+            }, failed ? 0L : RESULT_TTL_MILLIS);
+        }
+
+        /**
+         * Posts the result to an attached listener. The listener is detached
+         * when the callback runs, and skipped if it was detached before.
+         */
+        private void deliver(final TokenExchangeCallback listener, final AccessTokenResponse result) {
+            MAIN_HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (Exchange.this) {
+                        if (!mListeners.remove(listener)) {
+                            return;
+                        }
+                    }
+                    listener.onTokenExchangeComplete(result);
+                }
+            });
+        }
+
+        private static AccessTokenResponse createResponse(AccessTokenParser.Result parsed) {
+            AccessTokenResponse response = new AccessTokenResponse();
+            if (parsed.errorCode != null) {
+                response.setException(new FoursquareOAuthException(parsed.errorCode));
+            } else {
+                response.setAccessToken(parsed.accessToken);
+            }
+            return response;
+        }
+
+        private static AccessTokenResponse createErrorResponse(Exception e) {
+            AccessTokenResponse response = new AccessTokenResponse();
+            response.setException(new FoursquareInternalErrorException(e));
+            return response;
+        }
+    }
+}
@@ -0,0 +1,546 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded on-disk LRU cache for the static assets of the web login
+ * page, used from {@code WebViewClient.shouldInterceptRequest}.
+ * <br>
+ * <br>
+ * Only GET requests for stylesheets, scripts, fonts and images on Foursquare
+ * hosts are considered, and only responses that allow it are stored: no
+ * HTML, nothing marked {@code no-store} or {@code private}, nothing that
+ * sets a cookie, and no url carrying a token, code or secret. Assets are
+ * fetched without the WebView's cookies. A stored asset is served as is
+ * while its {@code max-age} lasts, then revalidated with its ETag or
+ * Last-Modified date. A stale asset is also served when the network fails.
+ * An asset larger than an eighth of the cache is streamed to the WebView
+ * without being stored. Everything else is left to the WebView.
+ * <br>
+ * <br>
+ * The cache is off unless {@link FoursquareOAuth#setWebAssetCacheSize(long)}
+ * is called. Methods may be called from any thread.
+ * 
+ * @date 2026-10-17
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+final class WebAssetCache {
+
+    private static final String DIR_NAME = "com.foursquare.android.nativeoauth.webassets";
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final String[] HOSTS = { "foursquare.com", "4sqi.net" };
+
+    private static final Set<String> EXTENSIONS = new HashSet<>(Arrays.asList(
+            "css", "js", "woff", "woff2", "ttf", "otf", "eot", "png", "jpg", "jpeg", "gif", "svg", "webp", "ico"));
+
+    private static final Set<String> CREDENTIAL_PARAMS = new HashSet<>(Arrays.asList(
+            "oauth_token", "access_token", "token", "code", "client_secret", "secret", "key", "sig", "signature"));
+
+    /** Response headers kept with an asset, cross-origin fonts need them. */
+    private static final String[] KEPT_HEADERS = { "Access-Control-Allow-Origin", "Timing-Allow-Origin" };
+
+    private static final String KEY_CONTENT_TYPE = "Content-Type";
+    private static final String KEY_ETAG = "ETag";
+    private static final String KEY_LAST_MODIFIED = "Last-Modified";
+    private static final String KEY_STORED_AT = "storedAt";
+    private static final String KEY_MAX_AGE = "maxAge";
+
+    private static final int TIMEOUT_MILLIS = 10000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Temp files older than this were left behind by a process that died
+     * mid-write, younger ones may still be written by this process.
+     */
+    private static final long LOADED_AT = System.currentTimeMillis();
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong REVALIDATED = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private static long sMaxBytes;
+    private static String sDirName = DIR_NAME;
+    private static WebAssetCache sInstance;
+
+    private final File mDir;
+    private final long mMaxBytes;
+
+    // Guarded by this. Body sizes by key, least recently used first.
+    private final LinkedHashMap<String, Long> mSizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long mTotalBytes;
+    private boolean mIndexed;
+
+    private WebAssetCache(File dir, long maxBytes) {
+        mDir = dir;
+        mMaxBytes = maxBytes;
+    }
+
+    static synchronized void setMaxBytes(long maxBytes) {
+        sMaxBytes = maxBytes;
+        if (sInstance != null && sInstance.mMaxBytes != maxBytes) {
+            sInstance = null;
+        }
+    }
+
+    static synchronized long getMaxBytes() {
+        return sMaxBytes;
+    }
+
+    /**
+     * Gives this process a cache directory of its own, so two processes
+     * never write and clean up the same files.
+     */
+    static synchronized void setDirectorySuffix(String suffix) {
+        sDirName = DIR_NAME + "-" + suffix;
+        sInstance = null;
+    }
+
+    /**
+     * @return the cache, or null if it is not enabled or the platform cannot
+     *          intercept requests with their method and headers.
+     */
+    static synchronized WebAssetCache getInstance(Context context) {
+        if (sMaxBytes <= 0 || Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return null;
+        }
+        if (sInstance == null) {
+            sInstance = new WebAssetCache(new File(context.getCacheDir(), sDirName), sMaxBytes);
+        }
+        return sInstance;
+    }
+
+    static WebAssetCacheStats getStats() {
+        return new WebAssetCacheStats(HITS.get(), REVALIDATED.get(), MISSES.get());
+    }
+
+    /**
+     * @return the response to hand to the WebView, or null to let it load
+     *          the request itself.
+     */
+    WebResourceResponse intercept(WebResourceRequest request) {
+        if (!isCacheable(request)) {
+            return null;
+        }
+
+        String url = request.getUrl().toString();
+        String key = keyOf(url);
+        Properties cached = readMeta(key);
+        long now = System.currentTimeMillis();
+        try {
+            if (cached != null && isFresh(cached, now)) {
+                WebResourceResponse response = serve(key, cached);
+                HITS.incrementAndGet();
+                return response;
+            }
+            return fetch(url, key, cached);
+        } catch (IOException e) {
+            if (cached != null) {
+                try {
+                    return serve(key, cached);
+                } catch (IOException ignored) {
+                    // Evicted in the meantime.
+                }
+            }
+            return null;
+        }
+    }
+
+    private WebResourceResponse fetch(String url, String key, Properties cached) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setUseCaches(false);
+            if (cached != null) {
+                String etag = cached.getProperty(KEY_ETAG);
+                String lastModified = cached.getProperty(KEY_LAST_MODIFIED);
+                if (etag != null) {
+                    connection.setRequestProperty("If-None-Match", etag);
+                }
+                if (lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", lastModified);
+                }
+            }
+
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                cached.setProperty(KEY_STORED_AT, String.valueOf(System.currentTimeMillis()));
+                cached.setProperty(KEY_MAX_AGE, String.valueOf(getMaxAgeMillis(connection)));
+                writeMeta(key, cached);
+                WebResourceResponse response = serve(key, cached);
+                REVALIDATED.incrementAndGet();
+                return response;
+            }
+            if (status != HttpURLConnection.HTTP_OK || !isCacheable(connection)) {
+                // Rare for these urls, the WebView loads them itself.
+                connection.disconnect();
+                return null;
+            }
+
+            Properties meta = new Properties();
+            copyHeader(connection, meta, KEY_CONTENT_TYPE);
+            copyHeader(connection, meta, KEY_ETAG);
+            copyHeader(connection, meta, KEY_LAST_MODIFIED);
+            for (String header : KEPT_HEADERS) {
+                copyHeader(connection, meta, header);
+            }
+            meta.setProperty(KEY_STORED_AT, String.valueOf(System.currentTimeMillis()));
+            meta.setProperty(KEY_MAX_AGE, String.valueOf(getMaxAgeMillis(connection)));
+
+            MISSES.incrementAndGet();
+            InputStream in = connection.getInputStream();
+            if (connection.getContentLength() > getMaxEntryBytes()) {
+                // Too large to be stored, the WebView reads it from the
+                // connection instead of fetching it a second time.
+                return respond(meta, in);
+            }
+            Body body = writeBody(key, in);
+            if (body.mOverflow != null) {
+                return respond(meta, body.mOverflow);
+            }
+            writeMeta(key, meta);
+            add(key, body.mSize);
+            return serve(key, meta);
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private WebResourceResponse serve(String key, Properties meta) throws IOException {
+        File body = new File(mDir, key + BODY_SUFFIX);
+        InputStream in = new FileInputStream(body);
+        touch(key, body);
+        return respond(meta, in);
+    }
+
+    private static WebResourceResponse respond(Properties meta, InputStream in) {
+        String mimeType = "application/octet-stream";
+        String encoding = null;
+        String contentType = meta.getProperty(KEY_CONTENT_TYPE);
+        if (contentType != null) {
+            String[] parts = contentType.split(";");
+            mimeType = parts[0].trim();
+            for (int i = 1; i < parts.length; i++) {
+                String part = parts[i].trim();
+                if (part.regionMatches(true, 0, "charset=", 0, 8)) {
+                    encoding = part.substring(8).trim();
+                }
+            }
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        for (String header : KEPT_HEADERS) {
+            String value = meta.getProperty(header);
+            if (value != null) {
+                headers.put(header, value);
+            }
+        }
+        return new WebResourceResponse(mimeType, encoding, HttpURLConnection.HTTP_OK, "OK", headers, in);
+    }
+
+    private static boolean isCacheable(WebResourceRequest request) {
+        if (!"GET".equalsIgnoreCase(request.getMethod()) || request.getRequestHeaders().containsKey("Authorization")) {
+            return false;
+        }
+
+        Uri uri = request.getUrl();
+        if (!"https".equals(uri.getScheme()) || !isFoursquareHost(uri.getHost())) {
+            return false;
+        }
+
+        String path = uri.getPath();
+        int dot = path != null ? path.lastIndexOf('.') : -1;
+        if (dot < 0 || !EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.US))) {
+            return false;
+        }
+
+        for (String name : uri.getQueryParameterNames()) {
+            if (CREDENTIAL_PARAMS.contains(name.toLowerCase(Locale.US))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFoursquareHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        for (String allowed : HOSTS) {
+            if (host.equals(allowed) || host.endsWith("." + allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCacheable(HttpURLConnection connection) {
+        if (connection.getHeaderField("Set-Cookie") != null) {
+            return false;
+        }
+        String contentType = connection.getContentType();
+        if (contentType == null || contentType.toLowerCase(Locale.US).startsWith("text/html")) {
+            return false;
+        }
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl != null) {
+            String directives = cacheControl.toLowerCase(Locale.US);
+            if (directives.contains("no-store") || directives.contains("private")) {
+                return false;
+            }
+        }
+        // Without a validator or a lifetime a stored copy could never be reused.
+        return connection.getHeaderField(KEY_ETAG) != null
+                || connection.getHeaderField(KEY_LAST_MODIFIED) != null
+                || getMaxAgeMillis(connection) > 0;
+    }
+
+    private static long getMaxAgeMillis(HttpURLConnection connection) {
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl == null) {
+            return 0;
+        }
+        for (String directive : cacheControl.split(",")) {
+            String trimmed = directive.trim().toLowerCase(Locale.US);
+            if (trimmed.equals("no-cache")) {
+                return 0;
+            }
+            if (trimmed.startsWith("max-age=")) {
+                try {
+                    return Long.parseLong(trimmed.substring(8)) * 1000;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isFresh(Properties meta, long now) {
+        try {
+            long storedAt = Long.parseLong(meta.getProperty(KEY_STORED_AT, "0"));
+            long maxAge = Long.parseLong(meta.getProperty(KEY_MAX_AGE, "0"));
+            return now - storedAt < maxAge;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static void copyHeader(HttpURLConnection connection, Properties meta, String header) {
+        String value = connection.getHeaderField(header);
+        if (value != null) {
+            meta.setProperty(header, value);
+        }
+    }
+
+    private Properties readMeta(String key) {
+        File file = new File(mDir, key + META_SUFFIX);
+        if (!file.exists() || !new File(mDir, key + BODY_SUFFIX).exists()) {
+            return null;
+        }
+        Properties meta = new Properties();
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                meta.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return meta;
+    }
+
+    private void writeMeta(String key, Properties meta) throws IOException {
+        File tmp = File.createTempFile(key, TMP_SUFFIX, ensureDir());
+        OutputStream out = new FileOutputStream(tmp);
+        try {
+            meta.store(out, null);
+        } finally {
+            out.close();
+        }
+        rename(tmp, new File(mDir, key + META_SUFFIX));
+    }
+
+    private long getMaxEntryBytes() {
+        return mMaxBytes / 8;
+    }
+
+    /**
+     * A body written to the cache, or one that turned out too large to be
+     * cached, in which case it is replayed from what was read so far and
+     * the rest of the connection.
+     */
+    private static final class Body {
+        final long mSize;
+        final InputStream mOverflow;
+
+        Body(long size, InputStream overflow) {
+            mSize = size;
+            mOverflow = overflow;
+        }
+    }
+
+    private Body writeBody(String key, InputStream in) throws IOException {
+        long maxEntryBytes = getMaxEntryBytes();
+        File tmp = File.createTempFile(key, TMP_SUFFIX, ensureDir());
+        long size = 0;
+        boolean overflow = false;
+        try {
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    out.write(buffer, 0, read);
+                    if (size > maxEntryBytes) {
+                        overflow = true;
+                        break;
+                    }
+                }
+            } finally {
+                out.close();
+                if (!overflow) {
+                    in.close();
+                }
+            }
+            if (overflow) {
+                // The open stream keeps reading the temp file once it is
+                // deleted below.
+                return new Body(size, new SequenceInputStream(new FileInputStream(tmp), in));
+            }
+            rename(tmp, new File(mDir, key + BODY_SUFFIX));
+            return new Body(size, null);
+        } finally {
+            if (tmp.exists()) {
+                tmp.delete();
+            }
+        }
+    }
+
+    private File ensureDir() throws IOException {
+        if (!mDir.isDirectory() && !mDir.mkdirs()) {
+            throw new IOException("Unable to create " + mDir);
+        }
+        return mDir;
+    }
+
+    private static void rename(File from, File to) throws IOException {
+        if (!from.renameTo(to)) {
+            from.delete();
+            throw new IOException("Unable to rename " + from + " to " + to);
+        }
+    }
+
+    private synchronized void add(String key, long size) {
+        ensureIndexed();
+        Long previous = mSizes.put(key, size);
+        mTotalBytes += size - (previous != null ? previous : 0);
+        for (Iterator<Map.Entry<String, Long>> it = mSizes.entrySet().iterator();
+                mTotalBytes > mMaxBytes && it.hasNext();) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            mTotalBytes -= eldest.getValue();
+            it.remove();
+            new File(mDir, eldest.getKey() + BODY_SUFFIX).delete();
+            new File(mDir, eldest.getKey() + META_SUFFIX).delete();
+        }
+    }
+
+    private synchronized void touch(String key, File body) {
+        ensureIndexed();
+        mSizes.get(key);
+        // Keeps the LRU order across restarts, the index is rebuilt from it.
+        body.setLastModified(System.currentTimeMillis());
+    }
+
+    private void ensureIndexed() {
+        if (mIndexed) {
+            return;
+        }
+        mIndexed = true;
+        File[] bodies = mDir.listFiles();
+        if (bodies == null) {
+            return;
+        }
+        Arrays.sort(bodies, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long diff = a.lastModified() - b.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        for (File file : bodies) {
+            String name = file.getName();
+            if (name.endsWith(BODY_SUFFIX)) {
+                mSizes.put(name.substring(0, name.length() - BODY_SUFFIX.length()), file.length());
+                mTotalBytes += file.length();
+            } else if (!name.endsWith(META_SUFFIX) && file.lastModified() < LOADED_AT) {
+                // A temp file left behind by a process that died mid-write.
+                file.delete();
+            }
+        }
+    }
+
+    private static String keyOf(String url) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA1");
+            return Fingerprints.toHex(md.digest(url.getBytes(UTF_8))).replace(":", "").toLowerCase(Locale.US);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA1 is not available", e);
+        }
+    }
+}
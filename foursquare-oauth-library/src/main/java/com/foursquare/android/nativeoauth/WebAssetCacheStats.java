@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+/**
+ * A snapshot of how often the web login's static assets were served from
+ * the cache enabled with {@link FoursquareOAuth#setWebAssetCacheSize(long)}.
+ * 
+ * @date 2026-10-17
+ */
+public final class WebAssetCacheStats {
+
+    private final long mHitCount;
+    private final long mRevalidatedCount;
+    private final long mMissCount;
+
+    WebAssetCacheStats(long hitCount, long revalidatedCount, long missCount) {
+        mHitCount = hitCount;
+        mRevalidatedCount = revalidatedCount;
+        mMissCount = missCount;
+    }
+
+    /** Assets served from the cache without a request. */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /** Assets served from the cache after the server answered 304 Not Modified. */
+    public long getRevalidatedCount() {
+        return mRevalidatedCount;
+    }
+
+    /** Cacheable assets that had to be downloaded. */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * The share of cacheable assets whose body came from the cache, hits
+     * and revalidations alike, or 0 before any asset was requested.
+     */
+    public double getHitRate() {
+        long served = mHitCount + mRevalidatedCount;
+        long total = served + mMissCount;
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    @Override
+    public String toString() {
+        return "WebAssetCacheStats{hits=" + mHitCount + ", revalidated=" + mRevalidatedCount
+                + ", misses=" + mMissCount + "}";
+    }
+}
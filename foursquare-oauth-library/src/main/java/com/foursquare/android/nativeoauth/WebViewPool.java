@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth;
+
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.ViewGroup;
+import android.webkit.WebChromeClient;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+/**
+ * Holds at most one configured {@link WebView} for
+ * {@link FoursquareOAuthWebviewActivity}.
+ * <br>
+ * <br>
+ * Creating the first WebView in a process initializes Chromium, which takes
+ * hundreds of milliseconds. Once {@link #warmUp(Context)} has been called, a
+ * WebView is created while the main thread is idle and lent to the activity,
+ * and the activity hands it back cleared when it finishes. Without a warm-up
+ * every WebView is destroyed when its activity is done with it. The idle
+ * WebView is released when the system asks the app to trim memory.
+ * <br>
+ * <br>
+ * All methods must be called on the main thread, except {@link #warmUp(Context)}
+ * and {@link #preconnect(Context, String)}.
+ * 
+ * @date 2026-10-17
+ */
+final class WebViewPool {
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static Context sAppContext;
+    private static boolean sEnabled;
+    private static WebView sIdle;
+    // False while a released WebView's history may still hold the last login.
+    private static boolean sIdleCleared;
+    private static String sPreconnectOrigin;
+
+    private WebViewPool() {
+    }
+
+    /**
+     * Enables pooling and creates a WebView the next time the main thread is
+     * idle. Can be called from any thread.
+     */
+    static void warmUp(Context context) {
+        // A WebView created from the app's Application.onCreate() would
+        // claim the login process's WebView data directory too early.
+        if (OAuthProcess.isCurrent(context)) {
+            return;
+        }
+        final Context appContext = context.getApplicationContext();
+        MAIN_HANDLER.post(new Runnable() {
+            @Override
+            public void run() {
+                enable(appContext);
+                Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+                    @Override
+                    public boolean queueIdle() {
+                        if (sEnabled && sIdle == null) {
+                            sIdle = create(new MutableContextWrapper(sAppContext));
+                            sIdleCleared = true;
+                            loadPreconnect(sIdle);
+                        }
+                        return false;
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Like {@link #warmUp(Context)}, and has the idle WebView open a
+     * connection to the origin as soon as it exists. Can be called from any
+     * thread.
+     */
+    static void preconnect(Context context, final String origin) {
+        warmUp(context);
+        MAIN_HANDLER.post(new Runnable() {
+            @Override
+            public void run() {
+                sPreconnectOrigin = origin;
+                if (sIdle != null && sIdleCleared) {
+                    loadPreconnect(sIdle);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the idle WebView attached to the activity, or a new one. An
+     * idle WebView whose history has not been cleared yet is not reused.
+     */
+    static WebView obtain(Activity activity) {
+        WebView webView = sIdle;
+        if (webView == null) {
+            return create(new MutableContextWrapper(activity));
+        }
+        sIdle = null;
+        if (!sIdleCleared) {
+            webView.destroy();
+            return create(new MutableContextWrapper(activity));
+        }
+        ((MutableContextWrapper) webView.getContext()).setBaseContext(activity);
+        return webView;
+    }
+
+    /**
+     * Takes back a WebView obtained from {@link #obtain(Activity)}. It is
+     * cleared and kept for the next activity if pooling is enabled and no
+     * other WebView is idle, otherwise it is destroyed. The history is
+     * cleared once about:blank has finished loading, since clearing it
+     * before the load commits would keep the login page as an entry.
+     */
+    static void release(final WebView webView) {
+        ViewGroup parent = (ViewGroup) webView.getParent();
+        if (parent != null) {
+            parent.removeView(webView);
+        }
+        webView.stopLoading();
+        webView.setWebViewClient(new WebViewClient());
+        webView.setWebChromeClient(new WebChromeClient());
+
+        if (!sEnabled || sIdle != null) {
+            webView.destroy();
+            return;
+        }
+
+        webView.setWebViewClient(new WebViewClient() {
+            @Override
+            public void onPageFinished(WebView view, String url) {
+                if (!"about:blank".equals(url)) {
+                    return;
+                }
+                view.clearHistory();
+                view.setWebViewClient(new WebViewClient());
+                if (view == sIdle) {
+                    sIdleCleared = true;
+                    loadPreconnect(view);
+                }
+            }
+        });
+        webView.loadUrl("about:blank");
+        webView.onPause();
+        ((MutableContextWrapper) webView.getContext()).setBaseContext(sAppContext);
+        sIdle = webView;
+        sIdleCleared = false;
+    }
+
+    static void trim() {
+        WebView webView = sIdle;
+        if (webView != null) {
+            sIdle = null;
+            webView.destroy();
+        }
+    }
+
+    @SuppressLint("SetJavaScriptEnabled")
+    private static WebView create(Context context) {
+        WebView webView = new WebView(context);
+        webView.setLayoutParams(new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        webView.getSettings().setJavaScriptEnabled(true);
+        return webView;
+    }
+
+    /**
+     * Loads a blank page that only asks Chromium to preconnect to the
+     * pending origin, which resolves it and opens a TLS connection in the
+     * WebView's own network stack.
+     */
+    private static void loadPreconnect(WebView webView) {
+        String origin = sPreconnectOrigin;
+        if (origin == null) {
+            return;
+        }
+        sPreconnectOrigin = null;
+        webView.loadDataWithBaseURL(null, "<link rel=\"preconnect\" href=\"" + origin + "\">",
+                "text/html", "UTF-8", null);
+    }
+
+    private static void enable(Context appContext) {
+        if (sEnabled) {
+            return;
+        }
+        sEnabled = true;
+        sAppContext = appContext;
+        appContext.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                    trim();
+                }
+            }
+
+            @Override
+            public void onLowMemory() {
+                trim();
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+                // no-op
+            }
+        });
+    }
+}
@@ -15,7 +15,8 @@
  */
 package com.foursquare.android.nativeoauth.model;
 
-import java.io.Serializable;
+import android.os.Parcel;
+import android.os.Parcelable;
 
 /**
  * Stores the access token reply for token exchange.
@@ -23,12 +24,23 @@ import java.io.Serializable;
  * Note that we recommend doing the token exchange on your server
  * instead of on the client.
  * 
+ * Only the error's kind, code and message are parcelled. The exception is
+ * rebuilt when {@link #getException()} is first called on the receiving side.
+ * 
  * @date 2013-06-01
  */
-public class AccessTokenResponse implements Serializable {
-    private static final long serialVersionUID = 1L;
+public class AccessTokenResponse implements Parcelable {
     private String accessToken;
     private Exception exception;
+    private ResponseError error;
+    
+    public AccessTokenResponse() {
+    }
+    
+    private AccessTokenResponse(Parcel source) {
+        accessToken = source.readString();
+        error = ResponseError.readFromParcel(source);
+    }
     
     public String getAccessToken() {
     	return accessToken;
@@ -39,10 +51,37 @@ public class AccessTokenResponse implements Serializable {
     }
     
     public Exception getException() {
+    	if (exception == null && error != null) {
+    		exception = error.toException();
+    	}
     	return exception;
     }
     
     public void setException(Exception exception) {
     	this.exception = exception;
+    	this.error = exception != null ? ResponseError.from(exception) : null;
     }
+    
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+    
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(accessToken);
+        ResponseError.writeToParcel(error, dest);
+    }
+    
+    public static final Creator<AccessTokenResponse> CREATOR = new Creator<AccessTokenResponse>() {
+        @Override
+        public AccessTokenResponse createFromParcel(Parcel source) {
+            return new AccessTokenResponse(source);
+        }
+        
+        @Override
+        public AccessTokenResponse[] newArray(int size) {
+            return new AccessTokenResponse[size];
+        }
+    };
 }
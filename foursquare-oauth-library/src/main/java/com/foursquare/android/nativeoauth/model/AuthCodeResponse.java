@@ -15,15 +15,34 @@
  */
 package com.foursquare.android.nativeoauth.model;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
 /**
  * Stores the code response from the server. You can then exchange the
  * code for a token.
  * 
+ * Only the error's kind, code and message are parcelled. The exception is
+ * rebuilt when {@link #getException()} is first called on the receiving side.
+ * 
  * @date 2013-06-01
  */
-public class AuthCodeResponse {
+public class AuthCodeResponse implements Parcelable {
     private String code;
+    private String state;
+    private String redirectUri;
     private Exception exception;
+    private ResponseError error;
+    
+    public AuthCodeResponse() {
+    }
+    
+    private AuthCodeResponse(Parcel source) {
+        code = source.readString();
+        state = source.readString();
+        redirectUri = source.readString();
+        error = ResponseError.readFromParcel(source);
+    }
     
     public String getCode() {
     	return code;
@@ -33,11 +52,66 @@ public class AuthCodeResponse {
     	this.code = code;
     }
     
+    /**
+     * Returns the state sent with the connect request, which is the
+     * {@link com.foursquare.android.nativeoauth.AuthSession} id for session
+     * flows. Null if the result does not carry one.
+     */
+    public String getState() {
+    	return state;
+    }
+    
+    public void setState(String state) {
+    	this.state = state;
+    }
+    
+    /**
+     * Returns the redirect uri the code was requested with, which has to be
+     * sent again when the code is exchanged for a token. Null if the code
+     * was not requested with one.
+     */
+    public String getRedirectUri() {
+    	return redirectUri;
+    }
+    
+    public void setRedirectUri(String redirectUri) {
+    	this.redirectUri = redirectUri;
+    }
+    
     public Exception getException() {
+    	if (exception == null && error != null) {
+    		exception = error.toException();
+    	}
     	return exception;
     }
     
     public void setException(Exception exception) {
     	this.exception = exception;
+    	this.error = exception != null ? ResponseError.from(exception) : null;
     }
+    
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+    
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(code);
+        dest.writeString(state);
+        dest.writeString(redirectUri);
+        ResponseError.writeToParcel(error, dest);
+    }
+    
+    public static final Creator<AuthCodeResponse> CREATOR = new Creator<AuthCodeResponse>() {
+        @Override
+        public AuthCodeResponse createFromParcel(Parcel source) {
+            return new AuthCodeResponse(source);
+        }
+        
+        @Override
+        public AuthCodeResponse[] newArray(int size) {
+            return new AuthCodeResponse[size];
+        }
+    };
 }
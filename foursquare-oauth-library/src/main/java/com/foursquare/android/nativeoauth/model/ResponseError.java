@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 Foursquare Labs, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.foursquare.android.nativeoauth.model;
+
+import android.os.Parcel;
+
+import com.foursquare.android.nativeoauth.FoursquareCancelException;
+import com.foursquare.android.nativeoauth.FoursquareDenyException;
+import com.foursquare.android.nativeoauth.FoursquareInternalErrorException;
+import com.foursquare.android.nativeoauth.FoursquareInvalidRequestException;
+import com.foursquare.android.nativeoauth.FoursquareOAuthException;
+import com.foursquare.android.nativeoauth.FoursquareUnsupportedVersionException;
+
+/**
+ * The parcelled form of a response exception: its kind, OAuth error code
+ * and message. Writing these few fields instead of a serialized exception
+ * keeps the stack trace and cause chain out of the result intent.
+ * <br>
+ * <br>
+ * The exception itself is rebuilt on the receiving side, only when
+ * {@link #toException()} is called.
+ * 
+ * @date 2026-10-17
+ */
+final class ResponseError {
+
+    private static final int KIND_OAUTH = 1;
+    private static final int KIND_INTERNAL_ERROR = 2;
+    private static final int KIND_DENIED = 3;
+    private static final int KIND_CANCEL = 4;
+    private static final int KIND_INVALID_REQUEST = 5;
+    private static final int KIND_UNSUPPORTED_VERSION = 6;
+
+    private final int mKind;
+    private final String mErrorCode;
+    private final String mMessage;
+
+    private ResponseError(int kind, String errorCode, String message) {
+        mKind = kind;
+        mErrorCode = errorCode;
+        mMessage = message;
+    }
+
+    /**
+     * Library exceptions keep their type. Anything else comes back as a
+     * {@link FoursquareInternalErrorException} carrying its class name and
+     * message.
+     */
+    static ResponseError from(Exception exception) {
+        if (exception instanceof FoursquareOAuthException) {
+            FoursquareOAuthException oauthException = (FoursquareOAuthException) exception;
+            return new ResponseError(KIND_OAUTH, oauthException.getErrorCode(), oauthException.getMessage());
+        } else if (exception instanceof FoursquareInternalErrorException) {
+            return new ResponseError(KIND_INTERNAL_ERROR, null, exception.getMessage());
+        } else if (exception instanceof FoursquareDenyException) {
+            return new ResponseError(KIND_DENIED, null, exception.getMessage());
+        } else if (exception instanceof FoursquareCancelException) {
+            return new ResponseError(KIND_CANCEL, null, exception.getMessage());
+        } else if (exception instanceof FoursquareInvalidRequestException) {
+            return new ResponseError(KIND_INVALID_REQUEST, null, exception.getMessage());
+        } else if (exception instanceof FoursquareUnsupportedVersionException) {
+            return new ResponseError(KIND_UNSUPPORTED_VERSION, null, exception.getMessage());
+        }
+        return new ResponseError(KIND_INTERNAL_ERROR, null, exception.toString());
+    }
+
+    static void writeToParcel(ResponseError error, Parcel dest) {
+        if (error == null) {
+            dest.writeInt(0);
+            return;
+        }
+        dest.writeInt(error.mKind);
+        dest.writeString(error.mErrorCode);
+        dest.writeString(error.mMessage);
+    }
+
+    static ResponseError readFromParcel(Parcel source) {
+        int kind = source.readInt();
+        if (kind == 0) {
+            return null;
+        }
+        return new ResponseError(kind, source.readString(), source.readString());
+    }
+
+    Exception toException() {
+        switch (mKind) {
+            case KIND_OAUTH:
+                return mErrorCode != null
+                        ? new FoursquareOAuthException(mErrorCode)
+                        : new FoursquareOAuthException(mMessage, null);
+            case KIND_DENIED:
+                return new FoursquareDenyException(mMessage);
+            case KIND_CANCEL:
+                return new FoursquareCancelException(mMessage);
+            case KIND_INVALID_REQUEST:
+                return new FoursquareInvalidRequestException(mMessage);
+            case KIND_UNSUPPORTED_VERSION:
+                return new FoursquareUnsupportedVersionException(mMessage);
+            case KIND_INTERNAL_ERROR:
+            default:
+                return new FoursquareInternalErrorException(mMessage);
+        }
+    }
+}
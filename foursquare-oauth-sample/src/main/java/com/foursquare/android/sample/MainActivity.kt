@@ -29,6 +29,7 @@ import com.foursquare.android.nativeoauth.FoursquareDenyException
 import com.foursquare.android.nativeoauth.FoursquareInvalidRequestException
 import com.foursquare.android.nativeoauth.FoursquareOAuth
 import com.foursquare.android.nativeoauth.FoursquareOAuthException
+import com.foursquare.android.nativeoauth.FoursquareTokenStore
 import com.foursquare.android.nativeoauth.FoursquareUnsupportedVersionException
 
 /**
@@ -41,6 +42,8 @@ class MainActivity : FragmentActivity() {
         super.onCreate(savedInstanceState)
         setContentView(R.layout.activity_main)
         ensureUi()
+        // The stored token is loaded in the background, refresh once it is ready.
+        FoursquareTokenStore.getInstance(this).getToken { ensureUi() }
     }
 
     override fun onActivityResult(requestCode: Int, resultCode: Int, data: Intent?) {
@@ -56,7 +59,7 @@ class MainActivity : FragmentActivity() {
      * message.
      */
     private fun ensureUi() {
-        val isAuthorized = !TextUtils.isEmpty(ExampleTokenStore.token)
+        val isAuthorized = !TextUtils.isEmpty(FoursquareTokenStore.getInstance(this).peekToken())
         val tvMessage = findViewById<TextView>(R.id.tvMessage)
         tvMessage.visibility = if (isAuthorized) View.VISIBLE else View.GONE
         val btnLogin = findViewById<Button>(R.id.btnLogin)
@@ -109,7 +112,7 @@ class MainActivity : FragmentActivity() {
             // Success.
             toastMessage(this, "Access token: $accessToken")
             // Persist the token for later use.
-            ExampleTokenStore.token = accessToken
+            FoursquareTokenStore.getInstance(this).setToken(accessToken)
             // Refresh UI.
             ensureUi()
         } else {